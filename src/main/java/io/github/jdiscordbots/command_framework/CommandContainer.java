@@ -10,9 +10,12 @@ import io.github.jdiscordbots.command_framework.command.CommandEvent;
  */
 final class CommandContainer
 {
-	public final String invoke;
 	public final List<Argument> args;
 	public final CommandEvent event;
+	private final String invokeSource;
+	private final int invokeStart;
+	private final int invokeEnd;
+	private final RegisteredCommand command;
 
 	/**
 	 * Construct a new Container by given command invoke and -event
@@ -22,8 +25,62 @@ final class CommandContainer
 	 */
 	public CommandContainer(String invoke, CommandEvent event)
 	{
-		this.invoke = invoke;
+		this(invoke, 0, invoke.length(), event);
+	}
+
+	/**
+	 * Construct a new Container for a command that has already been looked up
+	 *
+	 * @param invoke  name/invoke of command
+	 * @param command the invoked command or <code>null</code> if the command is unknown
+	 * @param event   {@link io.github.jdiscordbots.command_framework.command.CommandEvent CommandEvent}
+	 */
+	CommandContainer(String invoke, RegisteredCommand command, CommandEvent event)
+	{
+		this(invoke, 0, invoke.length(), command, event);
+	}
+
+	/**
+	 * Construct a new Container by given command event where the invoke is a part of a {@link String}
+	 *
+	 * @param invokeSource the {@link String} containing the name/invoke of command
+	 * @param invokeStart  the index of the first character of the invoke
+	 * @param invokeEnd    the index after the last character of the invoke
+	 * @param event        {@link io.github.jdiscordbots.command_framework.command.CommandEvent CommandEvent}
+	 */
+	public CommandContainer(String invokeSource, int invokeStart, int invokeEnd, CommandEvent event)
+	{
+		this(invokeSource, invokeStart, invokeEnd, null, event);
+	}
+
+	private CommandContainer(String invokeSource, int invokeStart, int invokeEnd, RegisteredCommand command, CommandEvent event)
+	{
+		this.invokeSource = invokeSource;
+		this.invokeStart = invokeStart;
+		this.invokeEnd = invokeEnd;
+		this.command = command;
 		this.args = event.getArgs();
 		this.event = event;
 	}
+
+	/**
+	 * Gets the name/invoke of the command as entered by the user
+	 *
+	 * @return the invoke
+	 */
+	public String getInvoke()
+	{
+		return invokeSource.substring(invokeStart, invokeEnd);
+	}
+
+	/**
+	 * Looks up the invoked command unless it has already been looked up
+	 *
+	 * @param table the {@link CommandTable} containing all commands
+	 * @return the command or <code>null</code> if the command is unknown
+	 */
+	RegisteredCommand lookup(CommandTable table)
+	{
+		return command != null ? command : table.get(invokeSource, invokeStart, invokeEnd);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.jdiscordbots.command_framework.command.CommandEvent;
+
+/**
+ * Passes commands from the {@link CommandListener} to the {@link CommandHandler}.
+ *
+ * If no {@link Executor} is configured, commands are handled on the thread that received them.
+ * Otherwise, commands are executed by the {@link Executor} one after another for every dispatch key.
+ * Optionally, waiting commands are kept in a bounded {@link DispatchQueue}.
+ */
+final class CommandDispatcher
+{
+	private static final Logger LOG=LoggerFactory.getLogger(CommandDispatcher.class);
+
+	private final CommandHandler handler;
+	private volatile Executor executor;
+	private volatile KeyedSerialExecutor serialExecutor;
+	private volatile DispatchQueue queue;
+	private int queueCapacity;
+	private OverloadPolicy overloadPolicy;
+	private volatile ToLongFunction<CommandEvent> dispatchKey = event -> event.getChannel().getIdLong();
+
+	/**
+	 * Creates a new dispatcher
+	 *
+	 * @param handler the {@link CommandHandler} executing the commands
+	 */
+	CommandDispatcher(CommandHandler handler)
+	{
+		this.handler = handler;
+	}
+
+	/**
+	 * Sets the {@link Executor} used for executing commands
+	 *
+	 * @param executor the {@link Executor} or <code>null</code> if commands should be executed on the thread receiving them
+	 */
+	synchronized void setExecutor(Executor executor)
+	{
+		this.executor = executor;
+		this.serialExecutor = executor == null ? null : new KeyedSerialExecutor(executor);
+		updateQueue();
+	}
+
+	/**
+	 * Limits the number of commands waiting for execution
+	 *
+	 * @param capacity the maximum number of waiting commands or <code>0</code> if the number should not be limited
+	 * @param policy   the {@link OverloadPolicy} used when the queue is full
+	 */
+	synchronized void setQueue(int capacity, OverloadPolicy policy)
+	{
+		this.queueCapacity = capacity;
+		this.overloadPolicy = policy;
+		updateQueue();
+	}
+
+	private void updateQueue()
+	{
+		this.queue = executor == null || queueCapacity == 0 ? null : new DispatchQueue(executor, handler, queueCapacity, overloadPolicy);
+	}
+
+	/**
+	 * Gets the number of commands waiting for execution
+	 *
+	 * @return the number of waiting commands, <code>0</code> if no bounded queue is used
+	 */
+	int getPendingCommandCount()
+	{
+		DispatchQueue currentQueue = queue;
+		return currentQueue == null ? 0 : currentQueue.size();
+	}
+
+	/**
+	 * Sets the function computing the key of commands that should be executed one after another
+	 *
+	 * @param dispatchKey the function computing the key
+	 */
+	void setDispatchKey(ToLongFunction<CommandEvent> dispatchKey)
+	{
+		this.dispatchKey = dispatchKey;
+	}
+
+	/**
+	 * Executes a command
+	 *
+	 * @param commandContainer {@link io.github.jdiscordbots.command_framework.CommandContainer CommandContainer}
+	 */
+	void dispatch(CommandContainer commandContainer)
+	{
+		DispatchQueue currentQueue = queue;
+		KeyedSerialExecutor currentSerialExecutor = serialExecutor;
+		if (currentQueue != null)
+		{
+			currentQueue.offer(commandContainer, dispatchKey.applyAsLong(commandContainer.event));
+		}
+		else if (currentSerialExecutor != null)
+		{
+			currentSerialExecutor.execute(dispatchKey.applyAsLong(commandContainer.event), () -> handler.handle(commandContainer, true));
+		}
+		else
+		{
+			handler.handle(commandContainer, false);
+		}
+	}
+
+	/**
+	 * Creates an {@link ExecutorService} starting a virtual thread per task.
+	 *
+	 * If virtual threads are not available (before Java 21), a pool with a bounded number of threads is created instead.
+	 * @param fallbackPoolSize the maximum number of threads if virtual threads are not available
+	 * @return the created {@link ExecutorService}
+	 */
+	static ExecutorService newVirtualThreadExecutor(int fallbackPoolSize)
+	{
+		try
+		{
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (NoSuchMethodException e)
+		{
+			LOG.debug("Virtual threads are not available, using a thread pool with {} threads", fallbackPoolSize);
+		}
+		catch (IllegalAccessException | InvocationTargetException e)
+		{
+			LOG.warn("Cannot create virtual thread executor, using a thread pool with {} threads", fallbackPoolSize, e);
+		}
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(fallbackPoolSize, fallbackPoolSize, 1, TimeUnit.MINUTES,
+				new LinkedBlockingQueue<>(), new WorkerThreadFactory());
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	private static final class WorkerThreadFactory implements ThreadFactory
+	{
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "command-framework-worker-" + threadNumber.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The state of a running command used for enforcing timeouts.
+ */
+final class CommandExecution
+{
+	private final CompletableFuture<Object> done = new CompletableFuture<>();
+	private Thread runner;
+	private CompletionStage<?> result;
+	private boolean timedOut;
+
+	/**
+	 * Creates the state of a command that is about to start
+	 *
+	 * @param runner the thread executing the synchronous part of the command if it may be interrupted, else <code>null</code>
+	 */
+	CommandExecution(Thread runner)
+	{
+		this.runner = runner;
+	}
+
+	/**
+	 * Gets a {@link CompletableFuture} that completes when the command finishes or times out
+	 *
+	 * @return the {@link CompletableFuture}
+	 */
+	CompletableFuture<Object> getDone()
+	{
+		return done;
+	}
+
+	/**
+	 * Called after the synchronous part of the command returned.
+	 *
+	 * Clears the interrupt status of the current thread if it has been interrupted because of a timeout.
+	 * @param result the {@link CompletionStage} returned by the command or <code>null</code> if the command already finished
+	 */
+	void started(CompletionStage<?> result)
+	{
+		if (result == null)
+		{
+			result = CompletableFuture.completedFuture(null);
+		}
+		boolean cancel;
+		synchronized (this)
+		{
+			if (runner != null && timedOut)
+			{
+				Thread.interrupted();
+			}
+			runner = null;
+			this.result = result;
+			cancel = timedOut;
+		}
+		if (cancel)
+		{
+			result.toCompletableFuture().cancel(true);
+		}
+		result.whenComplete((ignored, e) ->
+		{
+			if (e == null)
+			{
+				done.complete(null);
+			}
+			else
+			{
+				done.completeExceptionally(e);
+			}
+		});
+	}
+
+	/**
+	 * Cancels the command because it took too long.
+	 *
+	 * The thread executing the command is interrupted if it is still in the synchronous part of the command.
+	 * @return <code>true</code> if the command timed out, <code>false</code> if it already finished
+	 */
+	boolean timeout()
+	{
+		if (!done.completeExceptionally(new TimeoutException()))
+		{
+			return false;
+		}
+		CompletionStage<?> toCancel;
+		synchronized (this)
+		{
+			timedOut = true;
+			if (runner != null)
+			{
+				runner.interrupt();
+			}
+			toCancel = result;
+		}
+		if (toCancel != null)
+		{
+			toCancel.toCompletableFuture().cancel(true);
+		}
+		return true;
+	}
+}
@@ -2,18 +2,29 @@ package io.github.jdiscordbots.command_framework;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,10 +34,16 @@ import io.github.classgraph.ClassInfo;
 import io.github.classgraph.ScanResult;
 import io.github.jdiscordbots.command_framework.command.Command;
 import io.github.jdiscordbots.command_framework.command.CommandEvent;
+import io.github.jdiscordbots.command_framework.command.CommandIndex;
+import io.github.jdiscordbots.command_framework.command.ComponentPayload;
 import io.github.jdiscordbots.command_framework.command.ICommand;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.GenericComponentInteractionCreateEvent;
+import net.dv8tion.jda.api.events.interaction.component.SelectMenuInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.requests.RestAction;
@@ -44,15 +61,30 @@ public class CommandFramework
 	private static final Logger LOG=LoggerFactory.getLogger(CommandFramework.class);
 	
 	private final AtomicReference<Consumer<CommandEvent>> unknownCommandConsumer = new AtomicReference<>();
-	private final AtomicReference<Consumer<ButtonInteractionEvent>> unknownButtonConsumer = new AtomicReference<>();
+	private final AtomicReference<BiConsumer<ButtonInteractionEvent, UnknownComponentReason>> unknownButtonConsumer = new AtomicReference<>();
+	private final AtomicReference<BiConsumer<GenericInteractionCreateEvent, UnknownComponentReason>> unknownComponentConsumer = new AtomicReference<>();
 	private final AtomicReference<String> prefix = new AtomicReference<>("!");
+	private volatile PrefixProvider prefixProvider;
+	private volatile int prefixCacheSize = 10_000;
+	private volatile PrefixCache prefixCache;
 	private final Set<String> owners = Collections.newSetFromMap(new ConcurrentHashMap<>());
 	private volatile boolean mentionPrefix = true;
 	private volatile boolean unknownCommand = true;
 	private volatile boolean slashCommandsPerGuild=false;
 	private volatile boolean removeUnknownSlashCommands=true;
+	private volatile Duration commandTimeout;
+	private volatile Duration slashCommandReplyBudget;
+	private volatile String timeoutMessage="The command took too long and has been cancelled.";
+	private volatile String cooldownMessage="You are using this command too often, please try again later.";
+	private volatile String busyMessage="The bot is busy, please try again later.";
 	
 	private CommandHandler handler=new CommandHandler();
+	private final CommandDispatcher dispatcher=new CommandDispatcher(handler);
+	private final TimingWheel timer=new TimingWheel("command-framework-timer", 100, TimeUnit.MILLISECONDS, 512);
+	private volatile SlashCommandRegistry slashCommandRegistry=new SlashCommandRegistry(null, timer);
+	private final SlashCommandSyncScheduler slashCommandSyncScheduler=new SlashCommandSyncScheduler(timer, 4, 20);
+	private volatile SlashCommandSyncLock slashCommandSyncLock=new InMemorySlashCommandSyncLock();
+	private final ComponentSessionStore componentSessionStore=new ComponentSessionStore(timer);
 	
 	/**
 	 * Constructs a new CommandFramework instance with the caller-package
@@ -91,15 +123,91 @@ public class CommandFramework
 	/**
 	 * Creates an instance of the command framework.
 	 * Only classes in the passed package (and subpackages) will be scanned for commands.
+	 * 
+	 * If the commands have been indexed at compile time by the {@link io.github.jdiscordbots.command_framework.processor.CommandIndexProcessor annotation processor},
+	 * the {@link CommandIndex indices} of the package and its subpackages are used instead of scanning the classpath.
 	 * @param commandsRootPackage the root package to scan
+	 * @see CommandFramework#CommandFramework(String, boolean)
 	 */
 	public CommandFramework(String commandsRootPackage)
 	{
-		try (ScanResult scanResult = new ClassGraph().acceptPackages(commandsRootPackage).enableAnnotationInfo().scan())
+		this(commandsRootPackage, false);
+	}
+	
+	/**
+	 * Creates an instance of the command framework.
+	 * Only classes in the passed package (and subpackages) will be scanned for commands.
+	 * 
+	 * If the commands have been indexed at compile time by the {@link io.github.jdiscordbots.command_framework.processor.CommandIndexProcessor annotation processor},
+	 * the {@link CommandIndex indices} of the package and its subpackages are used instead of scanning the classpath.
+	 * Commands that are not indexed (e.g. because they are part of a library compiled without the annotation processor) are only found
+	 * if <code>scanUnindexedCommands</code> is set, which requires scanning the classpath on startup even if there are indices.
+	 * @param commandsRootPackage the root package to scan
+	 * @param scanUnindexedCommands <code>true</code> if the classpath should be scanned for commands that are not indexed, else <code>false</code>
+	 */
+	public CommandFramework(String commandsRootPackage, boolean scanUnindexedCommands)
+	{
+		Set<String> indexedClasses = addIndexedCommands(commandsRootPackage);
+		if (indexedClasses != null && !indexedClasses.isEmpty() && !scanUnindexedCommands)
+		{
+			return;
+		}
+		ClassGraph classGraph = new ClassGraph().acceptPackages(commandsRootPackage).enableAnnotationInfo();
+		if (indexedClasses != null && !indexedClasses.isEmpty())
+		{
+			classGraph.rejectClasses(indexedClasses.toArray(new String[0]));
+		}
+		try (ScanResult scanResult = classGraph.scan())
 		{
 			addCommands(scanResult);
 		}
 	}
+	
+	/**
+	 * Registers the commands of all {@link CommandIndex indices} in a package and its subpackages
+	 * @param commandsRootPackage the root package
+	 * @return the names of all indexed classes, which do not need to be scanned, or <code>null</code> if the indices cannot be loaded
+	 */
+	private Set<String> addIndexedCommands(String commandsRootPackage)
+	{
+		Set<String> indexedClasses = new HashSet<>();
+		try
+		{
+			for (CommandIndex index : ServiceLoader.load(CommandIndex.class, Thread.currentThread().getContextClassLoader()))
+			{
+				if (isInPackage(index.getPackageName(), commandsRootPackage))
+				{
+					index.registerCommands((className, factory, aliases) ->
+					{
+						indexedClasses.add(className);
+						try
+						{
+							ICommand cmd = factory.get();
+							for (String alias : aliases)
+							{
+								handler.addCommand(alias.toLowerCase(), cmd);
+							}
+						}
+						catch (RuntimeException e)
+						{
+							LOG.error("An exception occurred trying to create and register an instance of the class {}.", className, e);
+						}
+					});
+				}
+			}
+		}
+		catch (ServiceConfigurationError e)
+		{
+			LOG.warn("Cannot load the command indices, scanning the package {} instead.", commandsRootPackage, e);
+			return null;
+		}
+		return indexedClasses;
+	}
+	
+	private static boolean isInPackage(String packageName, String rootPackage)
+	{
+		return rootPackage.isEmpty() || packageName.equals(rootPackage) || packageName.startsWith(rootPackage + ".");
+	}
 
 	private void addCommands(ScanResult scanResult)
 	{
@@ -165,6 +273,67 @@ public class CommandFramework
 		return prefix.get();
 	}
 	
+	/**
+	 * Sets a provider for guild specific prefixes.
+	 * 
+	 * If a provider is set, messages in guilds must begin with one of the prefixes of the guild instead of the {@link CommandFramework#getPrefix() default prefix}.
+	 * The prefixes are cached and loaded asynchronously, see {@link CommandFramework#setPrefixCacheSize(int)}.
+	 * @param prefixProvider the {@link PrefixProvider} or <code>null</code> if the default prefix should be used in all guilds
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setPrefixProvider(PrefixProvider prefixProvider)
+	{
+		synchronized (prefix)
+		{
+			this.prefixProvider = prefixProvider;
+			this.prefixCache = prefixProvider == null ? null : new PrefixCache(prefixProvider, prefixCacheSize, timer);
+		}
+		return this;
+	}
+	
+	/**
+	 * Sets the maximum number of guilds whose prefixes are cached.
+	 * 
+	 * Changing the size clears the cache.
+	 * @param prefixCacheSize the maximum number of guilds in the cache, default is 10000
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 * @see CommandFramework#setPrefixProvider(PrefixProvider)
+	 */
+	public final CommandFramework setPrefixCacheSize(int prefixCacheSize)
+	{
+		if (prefixCacheSize < 1)
+		{
+			throw new IllegalArgumentException("The prefix cache must be able to hold at least one guild");
+		}
+		synchronized (prefix)
+		{
+			this.prefixCacheSize = prefixCacheSize;
+			setPrefixProvider(prefixProvider);
+		}
+		return this;
+	}
+	
+	/**
+	 * Removes the cached prefixes of a guild.
+	 * 
+	 * This should be called whenever the prefixes of a guild change.
+	 * @param guildId the ID of the guild
+	 * @see CommandFramework#setPrefixProvider(PrefixProvider)
+	 */
+	public final void invalidatePrefixes(long guildId)
+	{
+		PrefixCache cache = prefixCache;
+		if (cache != null)
+		{
+			cache.invalidate(guildId);
+		}
+	}
+	
+	PrefixCache getPrefixCache()
+	{
+		return prefixCache;
+	}
+	
 	/**
 	 * Sets the owners of the bot.
 	 * 
@@ -306,6 +475,78 @@ public class CommandFramework
 		return this;
 	}
 	
+	/**
+	 * Sets the file used for remembering which slash commands have been registered.
+	 * 
+	 * On startup, slash commands are only registered in a scope (globally or in a guild) if they changed since they have been registered the last time.
+	 * The IDs of the registered commands are remembered as well so that {@link CommandFramework#removeCommand(String) removing commands} does not need to retrieve all commands.
+	 * If no file is set, this is only remembered while the bot is running and the registered commands are retrieved from Discord after a restart.
+	 * @param fingerprintFile the file or <code>null</code> (default) if registered slash commands should not be remembered across restarts
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setSlashCommandFingerprintFile(Path fingerprintFile)
+	{
+		this.slashCommandRegistry = new SlashCommandRegistry(fingerprintFile, timer);
+		return this;
+	}
+	
+	/**
+	 * Sets the lock used for registering global slash commands only once.
+	 * 
+	 * When using a {@link net.dv8tion.jda.api.sharding.ShardManager ShardManager}, every shard would register the global slash commands.
+	 * By default, this happens only once per process. Bots running in multiple processes can use a lock that is shared by all processes.
+	 * Slash commands set up per-guild are always registered by the shard the guild belongs to.
+	 * @param slashCommandSyncLock the {@link SlashCommandSyncLock}
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setSlashCommandSyncLock(SlashCommandSyncLock slashCommandSyncLock)
+	{
+		this.slashCommandSyncLock = Objects.requireNonNull(slashCommandSyncLock);
+		return this;
+	}
+	
+	/**
+	 * Limits how fast slash commands are registered in guilds if {@link CommandFramework#setSlashCommandsPerGuild(boolean) slash commands are set up per-guild}.
+	 * 
+	 * Guilds where commands have been used recently are processed first and failed registrations are retried with exponential backoff.
+	 * Activity is only tracked while the bot is running, so it does not affect the order of the guilds becoming ready right after startup.
+	 * @param maxConcurrent the maximum number of guilds processed at the same time, default is 4
+	 * @param requestsPerSecond the maximum number of guilds started per second, default is 20
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 * @see CommandFramework#setSlashCommandSyncProgressListener(Consumer)
+	 */
+	public final CommandFramework setSlashCommandSyncRate(int maxConcurrent, int requestsPerSecond)
+	{
+		if (maxConcurrent < 1 || requestsPerSecond < 1)
+		{
+			throw new IllegalArgumentException("The rate must be positive");
+		}
+		slashCommandSyncScheduler.setRate(maxConcurrent, requestsPerSecond);
+		return this;
+	}
+	
+	/**
+	 * Sets a listener that is notified whenever slash commands have been registered in a guild.
+	 * @param progressListener the listener or <code>null</code> (default) if progress should not be reported
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 * @see CommandFramework#setSlashCommandSyncRate(int, int)
+	 */
+	public final CommandFramework setSlashCommandSyncProgressListener(Consumer<SlashCommandSyncProgress> progressListener)
+	{
+		slashCommandSyncScheduler.setProgressListener(progressListener);
+		return this;
+	}
+	
+	/**
+	 * Gets the progress of registering slash commands in guilds.
+	 * @return the current progress
+	 * @see CommandFramework#setSlashCommandSyncRate(int, int)
+	 */
+	public final SlashCommandSyncProgress getSlashCommandSyncProgress()
+	{
+		return slashCommandSyncScheduler.getProgress();
+	}
+	
 	/**
 	 * Checks whether unknown slash commands should be removed on startup or not.
 	 * @return <code>true</code> if unknown slash commands should be removed on startup, else <code>false</code>
@@ -315,6 +556,218 @@ public class CommandFramework
 		return removeUnknownSlashCommands;
 	}
 	
+	/**
+	 * Sets the {@link Executor} used for executing commands.
+	 * 
+	 * By default, commands are executed on the thread receiving the event which blocks processing other events until the command finishes.
+	 * If an {@link Executor} is set, commands with the same {@link CommandFramework#setDispatchKey(ToLongFunction) dispatch key} are still executed one after another.
+	 * The {@link Executor} is not shut down by the command framework.
+	 * @param executor the {@link Executor} or <code>null</code> if commands should be executed on the thread receiving them
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 * @see CommandFramework#setVirtualThreadExecutor(int)
+	 */
+	public final CommandFramework setExecutor(Executor executor)
+	{
+		dispatcher.setExecutor(executor);
+		return this;
+	}
+	
+	/**
+	 * Executes commands in virtual threads.
+	 * 
+	 * Virtual threads require Java 21 or newer.
+	 * On older Java versions, a thread pool with at most <code>fallbackPoolSize</code> threads is used instead.
+	 * @param fallbackPoolSize the number of threads used if virtual threads are not available
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 * @see CommandFramework#setExecutor(Executor)
+	 */
+	public final CommandFramework setVirtualThreadExecutor(int fallbackPoolSize)
+	{
+		if (fallbackPoolSize < 1)
+		{
+			throw new IllegalArgumentException("The thread pool must contain at least one thread");
+		}
+		return setExecutor(CommandDispatcher.newVirtualThreadExecutor(fallbackPoolSize));
+	}
+	
+	/**
+	 * Limits the number of commands waiting for execution.
+	 * 
+	 * This only has an effect if an {@link CommandFramework#setExecutor(Executor) executor} is used.
+	 * If the limit is reached, a command is dropped according to the {@link OverloadPolicy} and the {@link CommandFramework#setBusyMessage(String) busy message} is sent in response to that command.
+	 * @param capacity the maximum number of waiting commands or <code>0</code> (default) if the number should not be limited
+	 * @param policy the {@link OverloadPolicy} used if the queue is full
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 * @see CommandFramework#getPendingCommandCount()
+	 */
+	public final CommandFramework setDispatchQueue(int capacity, OverloadPolicy policy)
+	{
+		if (capacity < 0)
+		{
+			throw new IllegalArgumentException("The capacity must not be negative");
+		}
+		Objects.requireNonNull(policy);
+		dispatcher.setQueue(capacity, policy);
+		return this;
+	}
+	
+	/**
+	 * Gets the number of commands that have been received but are not executed yet.
+	 * 
+	 * This is only tracked if a {@link CommandFramework#setDispatchQueue(int, OverloadPolicy) dispatch queue} is used.
+	 * @return the number of waiting commands
+	 */
+	public final int getPendingCommandCount()
+	{
+		return dispatcher.getPendingCommandCount();
+	}
+	
+	/**
+	 * Sets the message that is sent when a command is dropped because too many commands are waiting for execution.
+	 * @param busyMessage the message to reply with
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 * @see CommandFramework#setDispatchQueue(int, OverloadPolicy)
+	 */
+	public final CommandFramework setBusyMessage(String busyMessage)
+	{
+		this.busyMessage = Objects.requireNonNull(busyMessage);
+		return this;
+	}
+	
+	/**
+	 * Gets the message that is sent when a command is dropped because too many commands are waiting for execution.
+	 * @return the message to reply with
+	 */
+	public final String getBusyMessage()
+	{
+		return busyMessage;
+	}
+	
+	/**
+	 * Sets the key of commands that must not run concurrently.
+	 * 
+	 * If an {@link CommandFramework#setExecutor(Executor) executor} is used, commands with the same key are executed in the order they have been received.
+	 * By default, commands are ordered per channel so that replies are sent in order.
+	 * @param dispatchKey a function computing the key of a command
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setDispatchKey(ToLongFunction<CommandEvent> dispatchKey)
+	{
+		Objects.requireNonNull(dispatchKey);
+		dispatcher.setDispatchKey(dispatchKey);
+		return this;
+	}
+	
+	/**
+	 * Sets the maximum time a command may take.
+	 * 
+	 * Commands that do not finish in time are cancelled and the {@link CommandFramework#setTimeoutMessage(String) timeout message} is sent.
+	 * This can be overridden per command using {@link ICommand#getTimeout()}.
+	 * @param commandTimeout the timeout or <code>null</code> (default) if commands should not time out
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setCommandTimeout(Duration commandTimeout)
+	{
+		if (commandTimeout != null && (commandTimeout.isNegative() || commandTimeout.isZero()))
+		{
+			throw new IllegalArgumentException("The timeout must be positive");
+		}
+		this.commandTimeout = commandTimeout;
+		return this;
+	}
+	
+	/**
+	 * Gets the maximum time a command may take if the command does not specify a timeout.
+	 * @return the timeout or <code>null</code> if commands do not time out
+	 * @see CommandFramework#setCommandTimeout(Duration)
+	 */
+	public final Duration getCommandTimeout()
+	{
+		return commandTimeout;
+	}
+	
+	/**
+	 * Sets how long slash commands may take to reply before the reply is deferred.
+	 * 
+	 * If a slash command replies within this time, the interaction is answered directly instead of deferring it first and sending a follow-up message.
+	 * This saves a REST request for commands that reply quickly.
+	 * The {@link net.dv8tion.jda.api.entities.Message Message} provided by a direct reply is a placeholder, the sent message can be retrieved using {@link io.github.jdiscordbots.command_framework.command.slash.SlashCommandFrameworkEvent#retrieveOriginalMessage()}.
+	 * As Discord requires interactions to be acknowledged within 3 seconds, the budget must be shorter than that.
+	 * @param slashCommandReplyBudget the time after which the reply is deferred or <code>null</code> (default) if replies should always be deferred immediately
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setSlashCommandReplyBudget(Duration slashCommandReplyBudget)
+	{
+		if (slashCommandReplyBudget != null && (slashCommandReplyBudget.isNegative() || slashCommandReplyBudget.compareTo(Duration.ofSeconds(3)) >= 0))
+		{
+			throw new IllegalArgumentException("The reply budget must be between 0 and 3 seconds");
+		}
+		this.slashCommandReplyBudget = slashCommandReplyBudget;
+		return this;
+	}
+	
+	/**
+	 * Gets how long slash commands may take to reply before the reply is deferred.
+	 * @return the reply budget or <code>null</code> if replies are deferred immediately
+	 * @see CommandFramework#setSlashCommandReplyBudget(Duration)
+	 */
+	public final Duration getSlashCommandReplyBudget()
+	{
+		return slashCommandReplyBudget;
+	}
+	
+	/**
+	 * Sets the message that is sent when a command is cancelled because it took too long.
+	 * @param timeoutMessage the message to reply with
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 * @see CommandFramework#setCommandTimeout(Duration)
+	 */
+	public final CommandFramework setTimeoutMessage(String timeoutMessage)
+	{
+		this.timeoutMessage = Objects.requireNonNull(timeoutMessage);
+		return this;
+	}
+	
+	/**
+	 * Gets the message that is sent when a command is cancelled because it took too long.
+	 * @return the message to reply with
+	 */
+	public final String getTimeoutMessage()
+	{
+		return timeoutMessage;
+	}
+	
+	/**
+	 * Sets the message that is sent when a command cannot be executed because of its {@link ICommand#getCooldown() cooldown}.
+	 * @param cooldownMessage the message to reply with
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setCooldownMessage(String cooldownMessage)
+	{
+		this.cooldownMessage = Objects.requireNonNull(cooldownMessage);
+		return this;
+	}
+	
+	/**
+	 * Gets the message that is sent when a command cannot be executed because of its {@link ICommand#getCooldown() cooldown}.
+	 * @return the message to reply with
+	 */
+	public final String getCooldownMessage()
+	{
+		return cooldownMessage;
+	}
+	
+	/**
+	 * Gets the number of commands that are currently executed.
+	 * 
+	 * A command is executed until the {@link java.util.concurrent.CompletionStage CompletionStage} returned by {@link ICommand#actionAsync(CommandEvent)} completes.
+	 * @return the number of running commands
+	 */
+	public final int getRunningCommandCount()
+	{
+		return handler.getRunningCommandCount();
+	}
+	
 	/**
 	 * Creates a listener for handling events related to the command framework.
 	 * 
@@ -329,9 +782,36 @@ public class CommandFramework
 		return new CommandListener(this);
 	}
 	
+	/**
+	 * Creates a custom ID for a component that is handled by a command.
+	 *
+	 * The custom ID refers to the command by a short hash of its name and contains the payload in a compact form,
+	 * so that it can be dispatched without parsing the name and stays valid if the commands are added in a different order after a restart.
+	 * If another command has the same hash, the full name is used instead.
+	 * Using a button, select menu or modal with this ID calls {@link ICommand#onButtonClick(ButtonInteractionEvent, ComponentPayload)},
+	 * {@link ICommand#onSelectMenu(SelectMenuInteractionEvent, ComponentPayload)} or {@link ICommand#onModalSubmit(ModalInteractionEvent, ComponentPayload)}.
+	 * If the command is not known anymore (e.g. because the commands have been changed after a restart), the {@link CommandFramework#setUnknownButtonAction(Consumer) unknown button action}
+	 * or {@link CommandFramework#setUnknownComponentAction(BiConsumer) unknown component action} is executed.
+	 * @param commandName the name of the command handling the component
+	 * @param payload the data stored in the custom ID
+	 * @return the custom ID
+	 * @throws IllegalArgumentException if there is no command with that name or the custom ID would be longer than 100 characters
+	 */
+	public String createComponentId(String commandName, ComponentPayload payload)
+	{
+		String name = commandName.toLowerCase();
+		ComponentRoutes routes = handler.getComponentRoutes();
+		if (!routes.contains(name))
+		{
+			throw new IllegalArgumentException("unknown command: " + commandName);
+		}
+		return ComponentIdCodec.encode(name, routes.isUnique(name), payload);
+	}
+
 	protected Consumer<ButtonInteractionEvent> getUnknownButtonAction()
 	{
-		return unknownButtonConsumer.get();
+		BiConsumer<ButtonInteractionEvent, UnknownComponentReason> action = unknownButtonConsumer.get();
+		return action == null ? null : event -> action.accept(event, UnknownComponentReason.UNKNOWN_COMMAND);
 	}
 	
 	/**
@@ -340,10 +820,136 @@ public class CommandFramework
 	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
 	 */
 	public final CommandFramework setUnknownButtonAction(Consumer<ButtonInteractionEvent> unknownButtonConsumer)
+	{
+		this.unknownButtonConsumer.set(unknownButtonConsumer == null ? null : (event, reason) -> unknownButtonConsumer.accept(event));
+		return this;
+	}
+	
+	/**
+	 * Sets the action executed when an unknown button is pressed, including the reason why the button is unknown.
+	 * 
+	 * This allows telling users that e.g. a {@link ComponentSessionStore session} has expired.
+	 * @param unknownButtonConsumer the action triggered when an unknown button is pressed.
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setUnknownButtonAction(BiConsumer<ButtonInteractionEvent, UnknownComponentReason> unknownButtonConsumer)
 	{
 		this.unknownButtonConsumer.set(unknownButtonConsumer);
 		return this;
 	}
+	
+	/**
+	 * Sets the action executed when a select menu or modal does not belong to any command.
+	 * 
+	 * Only select menus and modals with a custom ID created by {@link CommandFramework#createComponentId(String, ComponentPayload)}
+	 * or {@link CommandFramework#createSessionComponentId(String, ComponentPayload, Duration)} can be unknown.
+	 * Other select menus and modals whose custom ID does not start with the name of a command are ignored so that other listeners can handle them.
+	 * Unknown buttons use the {@link CommandFramework#setUnknownButtonAction(BiConsumer) unknown button action} if it is set.
+	 * @param unknownComponentConsumer the action triggered when an unknown select menu or modal is used.
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setUnknownComponentAction(BiConsumer<GenericInteractionCreateEvent, UnknownComponentReason> unknownComponentConsumer)
+	{
+		this.unknownComponentConsumer.set(unknownComponentConsumer);
+		return this;
+	}
+	
+	/**
+	 * Executes the unknown button or component action or acknowledges the interaction if there is none
+	 * @param event the {@link ButtonInteractionEvent}, {@link SelectMenuInteractionEvent} or {@link ModalInteractionEvent} of the unknown component
+	 * @param reason the reason why the component is unknown
+	 */
+	void onUnknownComponent(GenericInteractionCreateEvent event, UnknownComponentReason reason)
+	{
+		BiConsumer<ButtonInteractionEvent, UnknownComponentReason> buttonAction = unknownButtonConsumer.get();
+		BiConsumer<GenericInteractionCreateEvent, UnknownComponentReason> componentAction = unknownComponentConsumer.get();
+		if (buttonAction != null && event instanceof ButtonInteractionEvent)
+		{
+			buttonAction.accept((ButtonInteractionEvent) event, reason);
+		}
+		else if (componentAction != null)
+		{
+			componentAction.accept(event, reason);
+		}
+		else if (event instanceof GenericComponentInteractionCreateEvent)
+		{
+			((GenericComponentInteractionCreateEvent) event).deferEdit().queue();
+		}
+		else if (event instanceof ModalInteractionEvent)
+		{
+			ModalInteractionEvent modalEvent = (ModalInteractionEvent) event;
+			if (modalEvent.getMessage() == null)
+			{
+				modalEvent.deferReply(true).queue();
+			}
+			else
+			{
+				modalEvent.deferEdit().queue();
+			}
+		}
+	}
+	
+	/**
+	 * Creates a custom ID for a component whose state is kept in the {@link ComponentSessionStore}.
+	 * 
+	 * Use this instead of {@link CommandFramework#createComponentId(String, ComponentPayload)} if the state does not fit into the custom ID.
+	 * The state is passed to {@link ICommand#onButtonClick(ButtonInteractionEvent, ComponentPayload)} until the session expires.
+	 * @param commandName the name of the command handling the component
+	 * @param state the state of the session
+	 * @param ttl the time after which the session expires
+	 * @return the custom ID
+	 * @throws IllegalArgumentException if there is no command with that name or the state is larger than the {@link CommandFramework#setComponentSessionMemoryLimit(long) memory limit}
+	 */
+	public String createSessionComponentId(String commandName, ComponentPayload state, Duration ttl)
+	{
+		String name = commandName.toLowerCase();
+		ComponentRoutes routes = handler.getComponentRoutes();
+		if (!routes.contains(name))
+		{
+			throw new IllegalArgumentException("unknown command: " + commandName);
+		}
+		return ComponentIdCodec.encodeSession(name, routes.isUnique(name), componentSessionStore.create(state, ttl));
+	}
+	
+	/**
+	 * Gets the store of component sessions that can be used to update or invalidate sessions.
+	 * @return the {@link ComponentSessionStore}
+	 */
+	public ComponentSessionStore getComponentSessionStore()
+	{
+		return componentSessionStore;
+	}
+	
+	/**
+	 * Sets where the state of component sessions is stored.
+	 * 
+	 * By default, it is kept on the heap. A {@link MappedFileComponentSessionBackend} keeps it in a memory-mapped file instead.
+	 * Existing sessions are discarded.
+	 * @param backend the {@link ComponentSessionBackend}
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setComponentSessionBackend(ComponentSessionBackend backend)
+	{
+		componentSessionStore.setBackend(Objects.requireNonNull(backend));
+		return this;
+	}
+	
+	/**
+	 * Sets the maximum memory used by component sessions.
+	 * 
+	 * If the sessions use more memory, the oldest sessions are evicted before they expire.
+	 * @param memoryLimit the limit in bytes, 16 MiB by default
+	 * @return the instance (<code>this</code>) of the {@link CommandFramework} that can be used for chaining.
+	 */
+	public final CommandFramework setComponentSessionMemoryLimit(long memoryLimit)
+	{
+		if (memoryLimit <= 0)
+		{
+			throw new IllegalArgumentException("The memory limit must be positive");
+		}
+		componentSessionStore.setMemoryLimit(memoryLimit);
+		return this;
+	}
 
 	/**
 	 * Get all registered commands of the {@link io.github.jdiscordbots.command_framework.CommandFramework CommandFramework} instance
@@ -360,6 +966,8 @@ public class CommandFramework
 	 * Adds a new command.
 	 * 
 	 * The returned {@link Consumer} should be called for every {@link JDA} object the command should be used with.
+	 * It creates or updates the slash command globally or in every guild if {@link CommandFramework#setSlashCommandsPerGuild(boolean) slash commands are set up per-guild}.
+	 * Changes in guilds are scheduled so that they do not flood the rate limiter.
 	 * @param name The name of the command to create
 	 * @param cmd  the command itself
 	 * @return A {@link Consumer} that should be executed with any {@link JDA} object the command should be used with
@@ -368,16 +976,49 @@ public class CommandFramework
 	{
 		Objects.requireNonNull(name);
 		Objects.requireNonNull(cmd);
-		name=name.toLowerCase();
-		handler.addCommand(name,cmd);
-		CommandData cmdData = SlashCommandBuilder.buildSlashCommand(name, cmd);
-		return jda->jda.upsertCommand(cmdData).queue();
+		String actualName=name.toLowerCase();
+		String oldFingerprint = handler.getSlashCommands().getFingerprint();
+		handler.addCommand(actualName,cmd);
+		SlashCommands slashCommands = handler.getSlashCommands();
+		CommandData cmdData = slashCommands.get(actualName);
+		String newFingerprint = slashCommands.getFingerprint();
+		return jda ->
+		{
+			if (isSlashCommandsPerGuild())
+			{
+				for (Guild guild : jda.getGuilds())
+				{
+					long guildId = guild.getIdLong();
+					slashCommandSyncScheduler.submitChange(guildId, () ->
+					{
+						Guild current = jda.getGuildById(guildId);
+						if (current == null)
+							return CompletableFuture.completedFuture(null);
+						return upsertSlashCommand(guildId, current.upsertCommand(cmdData), oldFingerprint, newFingerprint);
+					});
+				}
+			}
+			else
+			{
+				syncGlobalSlashCommands(newFingerprint, () -> upsertSlashCommand(SlashCommandRegistry.GLOBAL_SCOPE, jda.upsertCommand(cmdData), oldFingerprint, newFingerprint));
+			}
+		};
+	}
+	
+	private CompletableFuture<?> upsertSlashCommand(long scope, RestAction<net.dv8tion.jda.api.interactions.commands.Command> upsert, String oldFingerprint, String newFingerprint)
+	{
+		SlashCommandRegistry registry = slashCommandRegistry;
+		return upsert.submit().thenAccept(command -> registry.updateCommand(scope, command.getName(), command.getIdLong(), oldFingerprint, newFingerprint));
 	}
 
 	/**
 	 * Removes an existing command.
 	 * 
 	 * The returned {@link Consumer} should be called for every {@link JDA} object the command should be used with.
+	 * It deletes the slash command globally and in every guild.
+	 * If slash commands are not {@link CommandFramework#setSlashCommandsPerGuild(boolean) set up per-guild}, only guilds the commands have been registered in before are changed.
+	 * Only scopes where the IDs of the registered commands are not known need to retrieve the commands first.
+	 * Changes in guilds are scheduled so that they do not flood the rate limiter.
 	 * @param name the name of the command to remove
 	 * @return A {@link Consumer} that should be executed with any {@link JDA} object the command should be used with
 	 */
@@ -385,22 +1026,104 @@ public class CommandFramework
 	{
 		Objects.requireNonNull(name);
 		String actualName=name.toLowerCase();
+		String oldFingerprint = handler.getSlashCommands().getFingerprint();
 		handler.removeCommand(actualName);
-		return jda -> Stream.concat(
-				Stream.of(jda.retrieveCommands()),
-				jda.getGuilds().stream().map(Guild::retrieveCommands))
-				.forEach(cmds -> removeSlashCommand(jda, actualName, cmds));
+		String newFingerprint = handler.getSlashCommands().getFingerprint();
+		return jda ->
+		{
+			syncGlobalSlashCommands(newFingerprint, () -> removeSlashCommand(SlashCommandRegistry.GLOBAL_SCOPE, actualName, jda::deleteCommandById, jda::retrieveCommands, oldFingerprint, newFingerprint));
+			boolean perGuild = isSlashCommandsPerGuild();
+			for (Guild guild : jda.getGuilds())
+			{
+				long guildId = guild.getIdLong();
+				if (!perGuild && slashCommandRegistry.getIds(guildId) == null)
+					continue;
+				slashCommandSyncScheduler.submitChange(guildId, () ->
+				{
+					Guild current = jda.getGuildById(guildId);
+					if (current == null)
+						return CompletableFuture.completedFuture(null);
+					return removeSlashCommand(guildId, actualName, current::deleteCommandById, current::retrieveCommands, oldFingerprint, newFingerprint);
+				});
+			}
+		};
 	}
 	
-	private void removeSlashCommand(JDA jda,String name,RestAction<List<net.dv8tion.jda.api.interactions.commands.Command>> commands)
+	private CompletableFuture<?> removeSlashCommand(long scope, String name, LongFunction<RestAction<Void>> deleter, Supplier<RestAction<List<net.dv8tion.jda.api.interactions.commands.Command>>> retriever, String oldFingerprint, String newFingerprint)
 	{
-		commands.queue(cmds -> cmds.stream()
-				.filter(cmd -> name.equals(cmd.getName()))
-				.forEach(cmd -> jda.deleteCommandById(cmd.getId()).queue()));
+		SlashCommandRegistry registry = slashCommandRegistry;
+		Map<String, Long> ids = registry.getIds(scope);
+		if (ids == null)
+		{
+			return retriever.get().submit().thenCompose(commands ->
+			{
+				registry.update(scope, null, commands);
+				return deleteSlashCommand(registry, scope, name, registry.getIds(scope).get(name), deleter, oldFingerprint, newFingerprint);
+			});
+		}
+		return deleteSlashCommand(registry, scope, name, ids.get(name), deleter, oldFingerprint, newFingerprint);
+	}
+	
+	private static CompletableFuture<?> deleteSlashCommand(SlashCommandRegistry registry, long scope, String name, Long id, LongFunction<RestAction<Void>> deleter, String oldFingerprint, String newFingerprint)
+	{
+		if (id == null)
+		{
+			return CompletableFuture.completedFuture(null);
+		}
+		return deleter.apply(id).submit().thenAccept(v -> registry.updateCommand(scope, name, null, oldFingerprint, newFingerprint));
+	}
+	
+	/**
+	 * Changes global slash commands if the {@link SlashCommandSyncLock} allows it.
+	 * 
+	 * The lock is released if the change fails so that it can be retried.
+	 * @param fingerprint the fingerprint of all commands after the change
+	 * @param task the change, returning a {@link CompletionStage} that completes when it is finished
+	 * @return a {@link CompletionStage} that completes when the change is finished or skipped
+	 */
+	CompletionStage<?> syncGlobalSlashCommands(String fingerprint, Supplier<? extends CompletionStage<?>> task)
+	{
+		SlashCommandSyncLock lock = slashCommandSyncLock;
+		return lock.tryAcquire(fingerprint).thenCompose(acquired ->
+		{
+			if (!Boolean.TRUE.equals(acquired))
+			{
+				LOG.debug("Global slash commands with fingerprint {} are registered elsewhere.", fingerprint);
+				return CompletableFuture.<Void>completedFuture(null);
+			}
+			return task.get().thenAccept(result -> { });
+		}).whenComplete((ignored, e) ->
+		{
+			if (e != null)
+			{
+				LOG.error("Cannot register global slash commands.", e);
+				lock.release(fingerprint);
+			}
+		});
 	}
 	
 	CommandHandler getCommandHandler()
 	{
 		return handler;
 	}
+	
+	CommandDispatcher getCommandDispatcher()
+	{
+		return dispatcher;
+	}
+	
+	SlashCommandRegistry getSlashCommandRegistry()
+	{
+		return slashCommandRegistry;
+	}
+	
+	SlashCommandSyncScheduler getSlashCommandSyncScheduler()
+	{
+		return slashCommandSyncScheduler;
+	}
+	
+	TimingWheel getTimer()
+	{
+		return timer;
+	}
 }
@@ -1,24 +1,73 @@
 package io.github.jdiscordbots.command_framework;
 
 import java.awt.Color;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.github.jdiscordbots.command_framework.command.CommandEvent;
+import io.github.jdiscordbots.command_framework.command.ComponentPayload;
 import io.github.jdiscordbots.command_framework.command.ICommand;
-import io.github.jdiscordbots.command_framework.command.slash.SlashCommandFrameworkEvent;
 import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.SelectMenuInteractionEvent;
 
 final class CommandHandler
 {
 	private final Map<String, ICommand> commands = new ConcurrentHashMap<>();
+	private final Map<String, RegisteredCommand> registeredCommands = new HashMap<>();
+	private volatile CommandTable table = new CommandTable(Collections.emptyMap());
+	private volatile SlashCommands slashCommands = SlashCommands.EMPTY;
+	private volatile ComponentRoutes componentRoutes = ComponentRoutes.EMPTY;
+	private final AtomicInteger runningCommands = new AtomicInteger();
 	private static final Logger LOG=LoggerFactory.getLogger(CommandHandler.class);
+	private static final ComponentCallback<ButtonInteractionEvent> BUTTON_CALLBACK = (cmd, event, payload) ->
+	{
+		if(payload==null)
+		{
+			cmd.onButtonClick(event);
+		}
+		else
+		{
+			cmd.onButtonClick(event, payload);
+		}
+	};
+	private static final ComponentCallback<SelectMenuInteractionEvent> SELECT_MENU_CALLBACK = (cmd, event, payload) ->
+	{
+		if(payload==null)
+		{
+			cmd.onSelectMenu(event);
+		}
+		else
+		{
+			cmd.onSelectMenu(event, payload);
+		}
+	};
+	private static final ComponentCallback<ModalInteractionEvent> MODAL_CALLBACK = (cmd, event, payload) ->
+	{
+		if(payload==null)
+		{
+			cmd.onModalSubmit(event);
+		}
+		else
+		{
+			cmd.onModalSubmit(event, payload);
+		}
+	};
 
 	/**
 	 * Get registered commands
@@ -38,7 +87,18 @@ final class CommandHandler
 	 */
 	void addCommand(String name, ICommand command)
 	{
-		commands.put(name, command);
+		synchronized (commands)
+		{
+			RegisteredCommand registered = registeredCommands.values().stream()
+					.filter(cmd -> cmd.getCommand() == command)
+					.findAny()
+					.orElseGet(() -> new RegisteredCommand(command));
+			commands.put(name, command);
+			registeredCommands.put(name, registered);
+			table = new CommandTable(registeredCommands);
+			slashCommands = slashCommands.with(name, registered);
+			componentRoutes = componentRoutes.with(name, registered);
+		}
 	}
 	
 	/**
@@ -48,28 +108,78 @@ final class CommandHandler
 	 */
 	void removeCommand(String name)
 	{
-		commands.remove(name);
+		synchronized (commands)
+		{
+			commands.remove(name);
+			registeredCommands.remove(name);
+			table = new CommandTable(registeredCommands);
+			slashCommands = slashCommands.without(name);
+			componentRoutes = componentRoutes.without(name);
+		}
+	}
+
+	/**
+	 * Gets the slash commands of all registered commands
+	 *
+	 * @return an immutable snapshot of the slash commands
+	 */
+	SlashCommands getSlashCommands()
+	{
+		return slashCommands;
+	}
+
+	/**
+	 * Looks up a command by its name ignoring case
+	 *
+	 * @param name the name/invoke of the command
+	 * @return the command or <code>null</code> if there is no command with that name
+	 */
+	RegisteredCommand getCommand(String name)
+	{
+		return table.get(name, 0, name.length());
+	}
+
+	/**
+	 * Get the commands that can be referred to by components
+	 *
+	 * @return the {@link ComponentRoutes}
+	 */
+	ComponentRoutes getComponentRoutes()
+	{
+		return componentRoutes;
+	}
+
+	/**
+	 * Gets the number of commands that have been started but are not finished yet
+	 *
+	 * @return the number of running commands
+	 */
+	int getRunningCommandCount()
+	{
+		return runningCommands.get();
 	}
 
 	/**
 	 * handle a command
 	 *
 	 * @param commandContainer {@link io.github.jdiscordbots.command_framework.CommandContainer CommandContainer}
+	 * @param interruptible <code>true</code> if the current thread may be interrupted when the command times out
+	 * @return a {@link CompletionStage} that completes when the command is finished
 	 */
-	public void handle(final CommandContainer commandContainer)
+	public CompletionStage<?> handle(final CommandContainer commandContainer, final boolean interruptible)
 	{
-		CommandEvent event = commandContainer.event;
-		String cmdIdentifier=commandContainer.invoke.toLowerCase();
+		final CommandEvent event = commandContainer.event;
+		final RegisteredCommand registered = commandContainer.lookup(table);
 		
-		if (commands.containsKey(cmdIdentifier))
+		if (registered != null)
 		{
-			final ICommand command = commands.get(cmdIdentifier);
-
+			final ICommand command = registered.getCommand();
 			boolean canExecute=true;
 			
-			if(event instanceof SlashCommandFrameworkEvent)
+			if (!registered.tryUse(event))
 			{
-				event=new SlashCommandFrameworkEvent(event.getFramework(),((SlashCommandFrameworkEvent) event).getEvent(),command.getExpectedArguments());
+				event.reply(event.getFramework().getCooldownMessage()).queue();
+				return CompletableFuture.completedFuture(null);
 			}
 			
 			canExecute &= command.allowExecute(event);
@@ -77,15 +187,7 @@ final class CommandHandler
 			/* Check permission and allow all commands to Owners */
 			if (canExecute || event.getFramework().getOwners().contains(event.getAuthor().getId()))
 			{
-				try
-				{
-					command.action(event);
-				}
-				catch (RuntimeException e)
-				{
-					LOG.error("The command {} was executed but an error occurred.", commandContainer.invoke, e);
-					event.reply("Error:\n```" + e.getMessage() + "\n```");
-				}
+				return execute(commandContainer, command, event, interruptible);
 			}
 			else
 			{
@@ -109,6 +211,59 @@ final class CommandHandler
 				unknownCommandConsumer.accept(event);
 			}
 		}
+		return CompletableFuture.completedFuture(null);
+	}
+
+	private CompletionStage<?> execute(final CommandContainer commandContainer, final ICommand command, final CommandEvent event, final boolean interruptible)
+	{
+		final long startTime = System.nanoTime();
+		final CommandFramework framework = event.getFramework();
+		final CommandExecution execution = new CommandExecution(interruptible ? Thread.currentThread() : null);
+		Duration timeout = command.getTimeout();
+		if (timeout == null)
+		{
+			timeout = framework.getCommandTimeout();
+		}
+		final TimingWheel.Timeout watchdog = timeout == null ? null : framework.getTimer().schedule(() ->
+		{
+			if (execution.timeout())
+			{
+				event.reply(framework.getTimeoutMessage()).queue();
+			}
+		}, timeout.toNanos(), TimeUnit.NANOSECONDS);
+		runningCommands.incrementAndGet();
+		CompletionStage<?> result;
+		try
+		{
+			result = command.actionAsync(event);
+		}
+		catch (RuntimeException e)
+		{
+			CompletableFuture<?> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			result = failed;
+		}
+		execution.started(result);
+		return execution.getDone().whenComplete((ignored, e) ->
+		{
+			runningCommands.decrementAndGet();
+			if (watchdog != null)
+			{
+				watchdog.cancel();
+			}
+			Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+			if (cause instanceof TimeoutException)
+			{
+				LOG.warn("The command {} has been cancelled because it did not finish within {} ms.", commandContainer.getInvoke(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+			}
+			else if (cause != null)
+			{
+				LOG.error("The command {} was executed but an error occurred.", commandContainer.getInvoke(), cause);
+				event.reply("Error:\n```" + cause.getMessage() + "\n```").queue();
+			}
+			if (LOG.isDebugEnabled())
+				LOG.debug("The command {} finished after {} ms", commandContainer.getInvoke(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+		});
 	}
 
 	/**
@@ -119,27 +274,127 @@ final class CommandHandler
 	 */
 	public void handleButtonClick(CommandFramework framework, ButtonInteractionEvent event)
 	{
-		String btnId=event.getButton().getId();
-		if(btnId!=null)
+		dispatchComponent(framework, event, event.getComponentId(), BUTTON_CALLBACK);
+	}
+
+	/**
+	 * handle a selection in a select menu
+	 *
+	 * @param framework {@link CommandFramework CommandFramework}
+	 * @param event {@link SelectMenuInteractionEvent SelectMenuInteractionEvent}
+	 */
+	public void handleSelectMenu(CommandFramework framework, SelectMenuInteractionEvent event)
+	{
+		dispatchComponent(framework, event, event.getComponentId(), SELECT_MENU_CALLBACK);
+	}
+
+	/**
+	 * handle a submitted modal
+	 *
+	 * @param framework {@link CommandFramework CommandFramework}
+	 * @param event {@link ModalInteractionEvent ModalInteractionEvent}
+	 */
+	public void handleModalSubmit(CommandFramework framework, ModalInteractionEvent event)
+	{
+		dispatchComponent(framework, event, event.getModalId(), MODAL_CALLBACK);
+	}
+
+	/**
+	 * Dispatches an interaction with a component or modal to the command its custom ID refers to.
+	 *
+	 * Custom IDs created by {@link CommandFramework#createComponentId(String, ComponentPayload)} or
+	 * {@link CommandFramework#createSessionComponentId(String, ComponentPayload, Duration)} are dispatched using the hash or name of the command.
+	 * Other custom IDs are dispatched to the command named by their first word.
+	 * If there is no such command, only buttons are treated as unknown (as they have always been).
+	 * Select menus and modals are left unacknowledged so that they can be handled by other listeners.
+	 * The custom ID is only parsed once.
+	 */
+	private <T extends GenericInteractionCreateEvent> void dispatchComponent(CommandFramework framework, T event, String customId, ComponentCallback<T> callback)
+	{
+		if(customId==null)
 		{
-			String btnIdPrefix=CommandParser.SPACE_PATTERN.split(btnId)[0];
-			ICommand cmd = commands.get(btnIdPrefix);
-			if(cmd!=null)
+			return;
+		}
+		if(!ComponentIdCodec.isEncoded(customId))
+		{
+			RegisteredCommand cmd=table.get(customId, 0, ComponentIdCodec.legacyNameEnd(customId));
+			if(cmd==null)
 			{
-				cmd.onButtonClick(event);
+				if(event instanceof ButtonInteractionEvent)
+				{
+					framework.onUnknownComponent(event, UnknownComponentReason.UNKNOWN_COMMAND);
+				}
 			}
 			else
 			{
-				Consumer<ButtonInteractionEvent> unknownButtonConsumer = framework.getUnknownButtonAction();
-				if(unknownButtonConsumer==null)
-				{
-					event.deferEdit().queue();
-				}
-				else
-				{
-					unknownButtonConsumer.accept(event);
-				}
+				callback.dispatch(cmd.getCommand(), event, null);
 			}
+			return;
+		}
+		int separator=ComponentIdCodec.separatorIndex(customId);
+		if(separator==-1)
+		{
+			framework.onUnknownComponent(event, UnknownComponentReason.MALFORMED);
+			return;
+		}
+		RegisteredCommand cmd;
+		if(ComponentIdCodec.isNamed(customId))
+		{
+			cmd=table.get(customId, ComponentIdCodec.NAME_START, separator);
+		}
+		else
+		{
+			long hash=ComponentIdCodec.decodeHash(customId, separator);
+			if(hash==-1)
+			{
+				framework.onUnknownComponent(event, UnknownComponentReason.MALFORMED);
+				return;
+			}
+			cmd=componentRoutes.get((int)hash);
+		}
+		if(cmd==null)
+		{
+			framework.onUnknownComponent(event, UnknownComponentReason.UNKNOWN_COMMAND);
+			return;
 		}
+		ComponentPayload payload;
+		if(ComponentIdCodec.isSession(customId, separator))
+		{
+			long key=ComponentIdCodec.decodeSessionKey(customId);
+			payload=key==-1?null:framework.getComponentSessionStore().get(key);
+			if(payload==null)
+			{
+				framework.onUnknownComponent(event, key==-1?UnknownComponentReason.MALFORMED:UnknownComponentReason.SESSION_EXPIRED);
+				return;
+			}
+		}
+		else
+		{
+			payload=ComponentIdCodec.decodePayload(customId, separator);
+			if(payload==null)
+			{
+				framework.onUnknownComponent(event, UnknownComponentReason.MALFORMED);
+				return;
+			}
+		}
+		callback.dispatch(cmd.getCommand(), event, payload);
+	}
+
+	/**
+	 * Calls the hook of a command for a specific kind of interaction
+	 *
+	 * @param <T> the type of the event
+	 */
+	@FunctionalInterface
+	private interface ComponentCallback<T extends GenericInteractionCreateEvent>
+	{
+		/**
+		 * Calls the hook
+		 *
+		 * @param cmd     the command
+		 * @param event   the event
+		 * @param payload the {@link ComponentPayload} or <code>null</code> if the custom ID uses the legacy format
+		 */
+		void dispatch(ICommand cmd, T event, ComponentPayload payload);
 	}
-}
+}
\ No newline at end of file
@@ -1,30 +1,57 @@
 package io.github.jdiscordbots.command_framework;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.jdiscordbots.command_framework.command.AutoCompleteSource;
+import io.github.jdiscordbots.command_framework.command.slash.SlashArgumentBinder;
 import io.github.jdiscordbots.command_framework.command.slash.SlashCommandFrameworkEvent;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.events.ReadyEvent;
+import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.SelectMenuInteractionEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.AutoCompleteQuery;
 import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 import net.dv8tion.jda.api.requests.RestAction;
 import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
 
 final class CommandListener extends ListenerAdapter
 {
+	private static final Logger LOG=LoggerFactory.getLogger(CommandListener.class);
+	private static final SlashArgumentBinder NO_ARGUMENTS=new SlashArgumentBinder(Collections.emptyList());
+	private static final long AUTO_COMPLETE_DEADLINE_MILLIS=2500;
+
 	private final CommandFramework framework;
 	private final CommandHandler handler;
+	private final CommandDispatcher dispatcher;
+	private volatile MentionPrefixes mentionPrefixes;
 
 	/**
 	 * Construct a new CommandListener with the given CommandFramework
@@ -35,58 +62,109 @@ final class CommandListener extends ListenerAdapter
 	{
 		this.framework=framework;
 		this.handler=framework.getCommandHandler();
+		this.dispatcher=framework.getCommandDispatcher();
 	}
 
 	@Override
 	public void onReady(ReadyEvent event)
 	{
-		initializeSlashCommands(event.getJDA());
+		if (!framework.isSlashCommandsPerGuild())
+		{
+			initializeGlobalSlashCommands(event.getJDA());
+		}
 	}
 	
-	private void initializeSlashCommands(JDA jda)
+	@Override
+	public void onGuildReady(GuildReadyEvent event)
 	{
-		Collection<CommandData> slashCommands = getSlashCommands();
-		initializeSlashCommands(jda,slashCommands);
+		initializeGuildSlashCommands(event.getJDA(), event.getGuild().getIdLong());
 	}
 	
-	private void initializeSlashCommands(JDA jda, Collection<CommandData> slashCommands)
+	@Override
+	public void onGuildJoin(GuildJoinEvent event)
 	{
-		if (framework.isSlashCommandsPerGuild())
-		{
-			for (Guild guild : jda.getGuilds())
-			{
-				initializeSlashCommands(slashCommands, guild::updateCommands, guild::retrieveCommands).queue();
-			}
-		}
+		initializeGuildSlashCommands(event.getJDA(), event.getGuild().getIdLong());
+	}
+	
+	@Override
+	public void onGuildLeave(GuildLeaveEvent event)
+	{
+		framework.getSlashCommandSyncScheduler().forgetActivity(event.getGuild().getIdLong());
+	}
+	
+	private void initializeGlobalSlashCommands(JDA jda)
+	{
+		SlashCommands slashCommands = handler.getSlashCommands();
+		String fingerprint = slashCommands.getFingerprint();
+		if (framework.getSlashCommandRegistry().matches(SlashCommandRegistry.GLOBAL_SCOPE, fingerprint))
+			LOG.debug("Global slash commands are up to date.");
 		else
-		{
-			initializeSlashCommands(slashCommands, jda::updateCommands, jda::retrieveCommands).queue();
-		}
+			framework.syncGlobalSlashCommands(fingerprint, () -> initializeSlashCommands(SlashCommandRegistry.GLOBAL_SCOPE, slashCommands.getCommandData(), fingerprint, jda::updateCommands, jda::retrieveCommands));
 	}
 	
-	private RestAction<Map<String, String>> initializeSlashCommands(Collection<CommandData> slashCommands,Supplier<CommandListUpdateAction> commandUpdater,Supplier<RestAction<List<net.dv8tion.jda.api.interactions.commands.Command>>> commandRetriever)
+	/**
+	 * Schedules the registration of the slash commands of a guild if {@link CommandFramework#setSlashCommandsPerGuild(boolean) slash commands are set up per-guild}.
+	 * 
+	 * Guilds whose registered commands are known to be up to date are skipped.
+	 * The commands are determined when the registration actually starts so that changes in the meantime are included.
+	 */
+	private void initializeGuildSlashCommands(JDA jda, long guildId)
 	{
-		CommandListUpdateAction commandsAction = commandUpdater.get().addCommands(slashCommands);
-		if(framework.isRemoveUnknownSlashCommands())
+		if (!framework.isSlashCommandsPerGuild())
+			return;
+		if (framework.getSlashCommandRegistry().matches(guildId, handler.getSlashCommands().getFingerprint()))
 		{
-			commandRetriever.get()
-					.queue(commands -> commands.stream().filter(
-							cmd -> slashCommands.stream().noneMatch(sCmd -> sCmd.getName().equals(cmd.getName())))
-							.forEach(cmd -> cmd.delete().queue()));
+			LOG.debug("Slash commands of guild {} are up to date.", guildId);
+			return;
 		}
-		
-		return commandsAction.map(commands->commands.stream().collect(Collectors.toMap(Command::getName,Command::getId)));
+		framework.getSlashCommandSyncScheduler().submit(guildId, () ->
+		{
+			Guild guild = jda.getGuildById(guildId);
+			if (guild == null)
+				return CompletableFuture.completedFuture(null);
+			SlashCommands slashCommands = handler.getSlashCommands();
+			return initializeSlashCommands(guildId, slashCommands.getCommandData(), slashCommands.getFingerprint(), guild::updateCommands, guild::retrieveCommands);
+		});
 	}
 	
-	private Collection<CommandData> getSlashCommands()
+	/**
+	 * Registers the slash commands of a scope unless they are already registered.
+	 * 
+	 * If the stored fingerprint of the scope matches, no request is sent.
+	 * Otherwise, the registered commands are retrieved and only overwritten if they differ.
+	 * Unknown commands are kept when overwriting if they should not be removed.
+	 * @return a {@link CompletableFuture} that completes when the commands are registered
+	 */
+	private CompletableFuture<?> initializeSlashCommands(long scope, Collection<CommandData> slashCommands, String fingerprint, Supplier<CommandListUpdateAction> commandUpdater, Supplier<RestAction<List<Command>>> commandRetriever)
 	{
-		Collection<CommandData> slashCommands = new ArrayList<>();
-		framework.getCommands()
-				.forEach((name, cmd) -> slashCommands.add(SlashCommandBuilder.buildSlashCommand(name, cmd)));
-		return slashCommands;
+		SlashCommandRegistry registry = framework.getSlashCommandRegistry();
+		if (registry.matches(scope, fingerprint))
+		{
+			LOG.debug("Slash commands of scope {} are up to date.", scope);
+			return CompletableFuture.completedFuture(null);
+		}
+		return commandRetriever.get().submit().thenCompose(registered ->
+		{
+			Set<String> names = slashCommands.stream().map(CommandData::getName).collect(Collectors.toSet());
+			Map<Boolean, List<CommandData>> registeredByKnown = registered.stream()
+					.map(CommandData::fromCommand)
+					.collect(Collectors.partitioningBy(cmd -> names.contains(cmd.getName())));
+			List<CommandData> unknown = registeredByKnown.get(false);
+			boolean removeUnknown = framework.isRemoveUnknownSlashCommands() && !unknown.isEmpty();
+			if (!removeUnknown && fingerprint.equals(SlashCommandFingerprints.fingerprint(registeredByKnown.get(true))))
+			{
+				registry.update(scope, fingerprint, registered);
+				return CompletableFuture.completedFuture(null);
+			}
+			CommandListUpdateAction update = commandUpdater.get().addCommands(slashCommands);
+			if (!framework.isRemoveUnknownSlashCommands())
+			{
+				update.addCommands(unknown);
+			}
+			return update.submit().thenAccept(commands -> registry.update(scope, fingerprint, commands));
+		});
 	}
 	
-	
 	/**
 	 * Handle incomming messages
 	 *
@@ -96,29 +174,215 @@ final class CommandListener extends ListenerAdapter
 	public void onMessageReceived(MessageReceivedEvent event)
 	{
 		final Message message = event.getMessage();
-		final String contentRaw = message.getContentRaw().trim();
-		final String selfUserId = message.getJDA().getSelfUser().getId();
-		final boolean containsMention = contentRaw.startsWith("<!@" + selfUserId + "> ")
-			|| contentRaw.startsWith("<@" + selfUserId + "> ");
-
 		if (message.getAuthor().isBot())
 			return;
 
-		if (framework.isMentionPrefix() && containsMention)
+		final String contentRaw = message.getContentRaw();
+		if (framework.isMentionPrefix())
+		{
+			int mentionEnd = getMentionPrefixEnd(event.getJDA(), contentRaw);
+			if (mentionEnd != -1)
+			{
+				dispatchTextCommand(event, mentionEnd);
+				return;
+			}
+		}
+
+		final PrefixCache prefixCache = framework.getPrefixCache();
+		if (prefixCache == null || !message.isFromGuild())
+		{
+			handleWithDefaultPrefix(event, contentRaw);
+			return;
+		}
+
+		final CompletableFuture<PrefixTrie> prefixes = prefixCache.get(event.getGuild().getIdLong());
+		if (prefixes.isDone() && !prefixes.isCompletedExceptionally())
+			handleWithPrefixes(event, contentRaw, prefixes.join());
+		else
+			prefixes.whenComplete((trie, e) ->
+			{
+				if (e == null)
+					handleWithPrefixes(event, contentRaw, trie);
+				else
+					handleWithDefaultPrefix(event, contentRaw);
+			});
+	}
+
+	private void handleWithPrefixes(MessageReceivedEvent event, String contentRaw, PrefixTrie prefixes)
+	{
+		if (prefixes.isEmpty())
 		{
-			handler.handle(CommandParser.parse(framework, event, CommandParser.SPACE_PATTERN.split(contentRaw)[0] + " "));
+			handleWithDefaultPrefix(event, contentRaw);
 			return;
 		}
 
-		if (message.getContentDisplay().startsWith(framework.getPrefix()))
-			handler.handle(CommandParser.parse(framework, event, framework.getPrefix()));
+		final int prefixLength = prefixes.match(contentRaw);
+		if (prefixLength != -1)
+			dispatchTextCommand(event, prefixLength);
+	}
+
+	private void handleWithDefaultPrefix(MessageReceivedEvent event, String contentRaw)
+	{
+		final String prefix = framework.getPrefix();
+		if (contentRaw.startsWith(prefix))
+			dispatchTextCommand(event, prefix.length());
+	}
+
+	private void dispatchTextCommand(MessageReceivedEvent event, int prefixEnd)
+	{
+		if (event.isFromGuild())
+			recordActivity(event.getGuild());
+		dispatcher.dispatch(CommandParser.parse(framework, event, prefixEnd));
+	}
+
+	/**
+	 * Records that a command has been used in a guild so that the guild is preferred when registering slash commands per guild
+	 *
+	 * @param guild the {@link Guild}
+	 */
+	private void recordActivity(Guild guild)
+	{
+		if (framework.isSlashCommandsPerGuild())
+			framework.getSlashCommandSyncScheduler().recordActivity(guild.getIdLong());
+	}
+
+	/**
+	 * Checks whether a message starts with a mention of the current user followed by whitespace
+	 *
+	 * @param jda the {@link JDA} instance that received the message
+	 * @param contentRaw the raw content of the message
+	 * @return the index after the mention or <code>-1</code> if the message does not start with a mention of the current user
+	 */
+	private int getMentionPrefixEnd(JDA jda, String contentRaw)
+	{
+		final int start = CommandParser.skipWhitespace(contentRaw, 0);
+		if (start >= contentRaw.length() || contentRaw.charAt(start) != '<')
+			return -1;
+
+		MentionPrefixes prefixes = mentionPrefixes;
+		final long selfUserId = jda.getSelfUser().getIdLong();
+		if (prefixes == null || prefixes.selfUserId != selfUserId)
+		{
+			prefixes = new MentionPrefixes(selfUserId);
+			mentionPrefixes = prefixes;
+		}
+
+		int end = -1;
+		if (contentRaw.startsWith(prefixes.mention, start))
+			end = start + prefixes.mention.length();
+		else if (contentRaw.startsWith(prefixes.nicknameMention, start))
+			end = start + prefixes.nicknameMention.length();
+
+		if (end == -1 || end >= contentRaw.length() || !CommandParser.isWhitespace(contentRaw.charAt(end)))
+			return -1;
+		return end;
+	}
+
+	/**
+	 * The mentions of the current user, computed once per user
+	 */
+	private static final class MentionPrefixes
+	{
+		private final long selfUserId;
+		private final String mention;
+		private final String nicknameMention;
+
+		private MentionPrefixes(long selfUserId)
+		{
+			this.selfUserId = selfUserId;
+			this.mention = "<@" + Long.toUnsignedString(selfUserId) + ">";
+			this.nicknameMention = "<@!" + Long.toUnsignedString(selfUserId) + ">";
+		}
 	}
 
 	@Override
 	public void onSlashCommandInteraction(SlashCommandInteractionEvent event)
 	{
-		SlashCommandFrameworkEvent frameworkEvent = new SlashCommandFrameworkEvent(framework,event);
-		event.deferReply().queue(action->handler.handle(new CommandContainer(event.getName(), frameworkEvent)));
+		if (event.isFromGuild())
+			recordActivity(event.getGuild());
+		RegisteredCommand registered = handler.getCommand(event.getName());
+		SlashCommandFrameworkEvent frameworkEvent = new SlashCommandFrameworkEvent(framework, event,
+				registered == null ? NO_ARGUMENTS : registered.getSlashArgumentBinder());
+		Duration replyBudget = framework.getSlashCommandReplyBudget();
+		if (replyBudget == null)
+		{
+			frameworkEvent.deferReplyIfPending();
+		}
+		else
+		{
+			framework.getTimer().schedule(frameworkEvent::deferReplyIfPending, replyBudget.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		dispatcher.dispatch(new CommandContainer(event.getName(), registered, frameworkEvent));
+	}
+
+	@Override
+	public void onCommandAutoCompleteInteraction(CommandAutoCompleteInteractionEvent event)
+	{
+		AutoCompleteQuery focused = event.getFocusedOption();
+		RegisteredCommand registered = handler.getCommand(event.getName());
+		AutoCompleteSource source = registered == null ? null : registered.getAutoCompleteSource(focused.getName());
+		if (source == null)
+		{
+			event.replyChoices(Collections.emptyList()).queue();
+			return;
+		}
+		AtomicBoolean replied = new AtomicBoolean();
+		TimingWheel.Timeout deadline = framework.getTimer().schedule(() ->
+		{
+			if (replied.compareAndSet(false, true))
+			{
+				LOG.warn("Autocompletion of argument {} of command {} took too long.", focused.getName(), event.getName());
+				event.replyChoices(Collections.emptyList()).queue();
+			}
+		}, AUTO_COMPLETE_DEADLINE_MILLIS, TimeUnit.MILLISECONDS);
+		CompletionStage<? extends List<String>> values;
+		try
+		{
+			values = source.complete(event, focused.getValue(), OptionData.MAX_CHOICES);
+		}
+		catch (RuntimeException e)
+		{
+			CompletableFuture<List<String>> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			values = failed;
+		}
+		values.whenComplete((result, e) ->
+		{
+			deadline.cancel();
+			if (!replied.compareAndSet(false, true))
+				return;
+			if (e != null)
+			{
+				LOG.error("Cannot autocomplete argument {} of command {}.", focused.getName(), event.getName(), e);
+				event.replyChoices(Collections.emptyList()).queue();
+				return;
+			}
+			event.replyChoices(toChoices(focused.getType(), result)).queue();
+		});
+	}
+
+	private static List<Command.Choice> toChoices(OptionType type, List<String> values)
+	{
+		List<Command.Choice> choices = new ArrayList<>(Math.min(values.size(), OptionData.MAX_CHOICES));
+		for (String value : values)
+		{
+			if (choices.size() == OptionData.MAX_CHOICES)
+				break;
+			try
+			{
+				if (type == OptionType.INTEGER)
+					choices.add(new Command.Choice(value, Long.parseLong(value)));
+				else if (type == OptionType.NUMBER)
+					choices.add(new Command.Choice(value, Double.parseDouble(value)));
+				else
+					choices.add(new Command.Choice(value, value));
+			}
+			catch (NumberFormatException e)
+			{
+				LOG.debug("Ignoring suggested value {} that is not a {}.", value, type);
+			}
+		}
+		return choices;
 	}
 
 	@Override
@@ -126,4 +390,16 @@ final class CommandListener extends ListenerAdapter
 	{
 		handler.handleButtonClick(framework,event);
 	}
+
+	@Override
+	public void onSelectMenuInteraction(SelectMenuInteractionEvent event)
+	{
+		handler.handleSelectMenu(framework,event);
+	}
+
+	@Override
+	public void onModalInteraction(ModalInteractionEvent event)
+	{
+		handler.handleModalSubmit(framework,event);
+	}
 }
\ No newline at end of file
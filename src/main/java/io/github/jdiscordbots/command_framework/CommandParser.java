@@ -1,61 +1,146 @@
 package io.github.jdiscordbots.command_framework;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
+import io.github.jdiscordbots.command_framework.command.Argument;
 import io.github.jdiscordbots.command_framework.command.CommandEvent;
-import io.github.jdiscordbots.command_framework.command.text.MessageArgument;
+import io.github.jdiscordbots.command_framework.command.text.MessageArgumentList;
 import io.github.jdiscordbots.command_framework.command.text.MessageCommandEvent;
+import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
+/**
+ * Splits the content of a message into the command invoke and its arguments.
+ *
+ * Arguments are separated by whitespace.
+ * An argument starting with <code>"</code> lasts until the next <code>"</code> that is followed by whitespace or the end of the message.
+ * <code>\"</code> can be used for a literal <code>"</code>.
+ * The content is scanned once without using regular expressions and arguments are only materialized when they are accessed.
+ */
 final class CommandParser
 {
-	static final Pattern SPACE_PATTERN=Pattern.compile("\\s+");
 	private CommandParser()
 	{
 		/* Prevent instantiation */
 	}
 
-	static CommandContainer parse(final CommandFramework framework, final MessageReceivedEvent event, final String prefix)
+	/**
+	 * Parses a text command.
+	 * @param framework the {@link CommandFramework} the command belongs to
+	 * @param event the event of the received message
+	 * @param offset the index in the raw content of the message where the prefix ends
+	 * @return a {@link CommandContainer} containing the invoke and the arguments of the command
+	 */
+	static CommandContainer parse(final CommandFramework framework, final MessageReceivedEvent event, final int offset)
 	{
-		String raw = event.getMessage().getContentRaw();
+		final String raw = event.getMessage().getContentRaw();
+		final int length=raw.length();
 
-		final String beheaded = raw.replaceFirst(Pattern.quote(prefix), "");
-		
-		final String[] splitBeheaded = SPACE_PATTERN.split(beheaded.trim());
-		final String invoke = splitBeheaded[0];
-		final List<String> split = new ArrayList<>();
-		boolean inQuote = false;
-
-		for (int i = 1; i < splitBeheaded.length; i++)
+		int pos=skipWhitespace(raw, offset);
+		final int invokeStart=pos;
+		while(pos<length&&!isWhitespace(raw.charAt(pos)))
 		{
-			String s = splitBeheaded[i];
+			pos++;
+		}
+		final int invokeEnd=pos;
+
+		final List<Argument> args=parseArgs(event.getMessage(), raw, invokeEnd);
+		final CommandEvent commandEvent = new MessageCommandEvent(framework, event, args);
+		return new CommandContainer(raw, invokeStart, invokeEnd, commandEvent);
+	}
 
-			if (inQuote)
+	private static List<Argument> parseArgs(final Message msg, final String raw, final int offset)
+	{
+		final int length=raw.length();
+		int[] starts=null;
+		int[] ends=null;
+		int count=0;
+		int pos=skipWhitespace(raw, offset);
+		while(pos<length)
+		{
+			int start=pos;
+			int end=-1;
+			if(raw.charAt(pos)=='"')
 			{
-				if (s.endsWith("\""))
+				start=++pos;
+				while(pos<length&&end==-1)
 				{
-					inQuote = false;
-					s = s.substring(0, s.length() - 1);
+					if(isEscapedQuote(raw, pos))
+					{
+						pos+=2;
+					}
+					else
+					{
+						if(raw.charAt(pos)=='"'&&(pos+1==length||isWhitespace(raw.charAt(pos+1))))
+						{
+							end=pos;
+						}
+						pos++;
+					}
+				}
+				if(end==-1)
+				{
+					end=trimEnd(raw, start, length);
 				}
-
-				split.add(split.remove(split.size() - 1)+" "+s);
 			}
 			else
 			{
-				if (s.startsWith("\"") && !s.endsWith("\""))
+				while(pos<length&&!isWhitespace(raw.charAt(pos)))
 				{
-					inQuote = true;
-					s = s.substring(1);
+					pos+=isEscapedQuote(raw, pos)?2:1;
 				}
-
-				split.add(s);
+				end=pos;
+			}
+			if(starts==null)
+			{
+				starts=new int[4];
+				ends=new int[4];
 			}
+			else if(starts.length==count)
+			{
+				starts=Arrays.copyOf(starts, count*2);
+				ends=Arrays.copyOf(ends, count*2);
+			}
+			starts[count]=start;
+			ends[count]=end;
+			count++;
+			pos=skipWhitespace(raw, pos);
 		}
+		return count==0?Collections.emptyList():new MessageArgumentList(msg, raw, starts, ends, count);
+	}
 
-		final CommandEvent commandEvent = new MessageCommandEvent(framework, event, split.stream().map(str->new MessageArgument(event.getMessage(), str)).collect(Collectors.toList()));
-		return new CommandContainer(invoke, commandEvent);
+	private static boolean isEscapedQuote(String raw, int pos)
+	{
+		return raw.charAt(pos)=='\\'&&pos+1<raw.length()&&raw.charAt(pos+1)=='"';
+	}
+
+	private static int trimEnd(String raw, int start, int end)
+	{
+		while(end>start&&isWhitespace(raw.charAt(end-1)))
+		{
+			end--;
+		}
+		return end;
+	}
+
+	static int skipWhitespace(String raw, int pos)
+	{
+		while(pos<raw.length()&&isWhitespace(raw.charAt(pos)))
+		{
+			pos++;
+		}
+		return pos;
+	}
+
+	/**
+	 * Checks whether a character is whitespace in the same way as <code>\s</code> in a regular expression.
+	 * @param c the character to check
+	 * @return <code>true</code> if the character is whitespace, else <code>false</code>
+	 */
+	static boolean isWhitespace(char c)
+	{
+		return c==' '||c=='\t'||c=='\n'||c=='\u000B'||c=='\f'||c=='\r';
 	}
 }
\ No newline at end of file
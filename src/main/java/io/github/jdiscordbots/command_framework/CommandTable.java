@@ -0,0 +1,96 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.Map;
+
+/**
+ * An immutable hash table mapping command names to registered commands.
+ *
+ * Lookups are case insensitive and can be done on a part of a {@link CharSequence} without creating a new {@link String}.
+ * Characters are converted to lower case one at a time so command names should only contain characters
+ * where {@link Character#toLowerCase(char)} and {@link String#toLowerCase()} agree.
+ */
+final class CommandTable
+{
+	private final String[] names;
+	private final RegisteredCommand[] commands;
+	private final int mask;
+
+	/**
+	 * Creates a table containing all entries of a {@link Map}
+	 *
+	 * @param commands the commands by their (lower case) names
+	 */
+	CommandTable(Map<String, RegisteredCommand> commands)
+	{
+		int capacity = Integer.highestOneBit(Math.max(2, commands.size() * 2 - 1)) << 1;
+		this.names = new String[capacity];
+		this.commands = new RegisteredCommand[capacity];
+		this.mask = capacity - 1;
+		for (Map.Entry<String, RegisteredCommand> entry : commands.entrySet())
+		{
+			String name = entry.getKey();
+			int i = hash(name, 0, name.length()) & mask;
+			while (names[i] != null)
+			{
+				i = (i + 1) & mask;
+			}
+			names[i] = name;
+			this.commands[i] = entry.getValue();
+		}
+	}
+
+	/**
+	 * Looks up a command ignoring case
+	 *
+	 * @param seq   the {@link CharSequence} containing the name of the command
+	 * @param start the index of the first character of the name
+	 * @param end   the index after the last character of the name
+	 * @return the command or <code>null</code> if there is no command with that name
+	 */
+	RegisteredCommand get(CharSequence seq, int start, int end)
+	{
+		for (int i = hash(seq, start, end) & mask; names[i] != null; i = (i + 1) & mask)
+		{
+			if (matches(names[i], seq, start, end))
+			{
+				return commands[i];
+			}
+		}
+		return null;
+	}
+
+	private static boolean matches(String name, CharSequence seq, int start, int end)
+	{
+		if (name.length() != end - start)
+		{
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++)
+		{
+			if (name.charAt(i) != toLowerCase(seq.charAt(start + i)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int hash(CharSequence seq, int start, int end)
+	{
+		int h = 0;
+		for (int i = start; i < end; i++)
+		{
+			h = 31 * h + toLowerCase(seq.charAt(i));
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private static char toLowerCase(char c)
+	{
+		if (c < 128)
+		{
+			return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+		}
+		return Character.toLowerCase(c);
+	}
+}
\ No newline at end of file
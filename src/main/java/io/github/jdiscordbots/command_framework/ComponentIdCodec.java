@@ -0,0 +1,222 @@
+package io.github.jdiscordbots.command_framework;
+
+import io.github.jdiscordbots.command_framework.command.ComponentPayload;
+
+/**
+ * Encodes and decodes custom IDs of components referring to a command by the {@link ComponentRoutes#hash(String) hash} of its name.
+ *
+ * An encoded custom ID consists of a marker, the key of the command, a separator, the version of the payload (one base 36 digit)
+ * and the {@link ComponentPayload}.
+ * The key is the unsigned hash in base 36 or, if another command has the same hash, the marker followed by the full name of the command.
+ * As the version and the payload never contain a separator, the last separator ends the key even if the name contains one.
+ * Custom IDs of components with a {@link ComponentSessionStore session} use a different separator and their payload only contains the key of the session.
+ *
+ * Custom IDs not starting with the marker use the legacy format where the first word is the name of the command.
+ */
+final class ComponentIdCodec
+{
+	/**
+	 * The maximum length of a custom ID allowed by Discord
+	 */
+	static final int MAX_LENGTH = 100;
+
+	/**
+	 * The index of the first character of the name in custom IDs referring to the command by name
+	 */
+	static final int NAME_START = 2;
+
+	private static final char MARKER = '~';
+	private static final char SEPARATOR = ':';
+	private static final char SESSION_SEPARATOR = '.';
+	private static final int RADIX = 36;
+
+	private ComponentIdCodec()
+	{
+		/* Prevent instantiation */
+	}
+
+	/**
+	 * Creates a custom ID
+	 *
+	 * @param name    the name of the command
+	 * @param byHash  <code>true</code> if the command is referred to by its hash, <code>false</code> if by its name
+	 * @param payload the data stored in the custom ID
+	 * @return the custom ID
+	 * @throws IllegalArgumentException if the custom ID is longer than {@link ComponentIdCodec#MAX_LENGTH}
+	 */
+	static String encode(String name, boolean byHash, ComponentPayload payload)
+	{
+		return encode(name, byHash, SEPARATOR, payload);
+	}
+
+	/**
+	 * Creates a custom ID referring to a session
+	 *
+	 * @param name   the name of the command
+	 * @param byHash <code>true</code> if the command is referred to by its hash, <code>false</code> if by its name
+	 * @param key    the key of the session
+	 * @return the custom ID
+	 */
+	static String encodeSession(String name, boolean byHash, long key)
+	{
+		return encode(name, byHash, SESSION_SEPARATOR, ComponentPayload.builder(0).putLong(key).build());
+	}
+
+	private static String encode(String name, boolean byHash, char separator, ComponentPayload payload)
+	{
+		StringBuilder encoded = new StringBuilder().append(MARKER);
+		if (byHash)
+		{
+			encoded.append(Integer.toUnsignedString(ComponentRoutes.hash(name), RADIX));
+		}
+		else
+		{
+			encoded.append(MARKER).append(name);
+		}
+		encoded.append(separator)
+				.append(Character.forDigit(payload.getVersion(), RADIX))
+				.append(payload.getEncoded());
+		if (encoded.length() > MAX_LENGTH)
+		{
+			throw new IllegalArgumentException("The custom ID is longer than " + MAX_LENGTH + " characters: " + encoded);
+		}
+		return encoded.toString();
+	}
+
+	/**
+	 * Checks whether a custom ID has been created by {@link ComponentIdCodec#encode(String, boolean, ComponentPayload)}
+	 *
+	 * @param customId the custom ID
+	 * @return <code>true</code> if the custom ID is encoded, <code>false</code> if it uses the legacy format
+	 */
+	static boolean isEncoded(String customId)
+	{
+		return !customId.isEmpty() && customId.charAt(0) == MARKER;
+	}
+
+	/**
+	 * Finds the separator after the key of an encoded custom ID
+	 *
+	 * @param customId an encoded custom ID
+	 * @return the index of the separator or <code>-1</code> if the custom ID is malformed
+	 */
+	static int separatorIndex(String customId)
+	{
+		int separator = Math.max(customId.lastIndexOf(SEPARATOR), customId.lastIndexOf(SESSION_SEPARATOR));
+		int keyStart = isNamed(customId) ? NAME_START : 1;
+		return separator > keyStart && separator + 1 < customId.length() ? separator : -1;
+	}
+
+	/**
+	 * Checks whether a custom ID refers to the command by its full name
+	 *
+	 * @param customId an encoded custom ID
+	 * @return <code>true</code> if the key is the name of the command, <code>false</code> if it is the hash
+	 */
+	static boolean isNamed(String customId)
+	{
+		return customId.length() > 1 && customId.charAt(1) == MARKER;
+	}
+
+	/**
+	 * Gets the hash of the name of the command a custom ID refers to
+	 *
+	 * @param customId  an encoded custom ID not referring to the command by name
+	 * @param separator the index of the separator
+	 * @return the hash as an unsigned value or <code>-1</code> if the key is malformed
+	 */
+	static long decodeHash(String customId, int separator)
+	{
+		long hash = 0;
+		for (int i = 1; i < separator; i++)
+		{
+			int digit = Character.digit(customId.charAt(i), RADIX);
+			if (digit < 0)
+			{
+				return -1;
+			}
+			hash = hash * RADIX + digit;
+			if (hash > 0xFFFFFFFFL)
+			{
+				return -1;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Gets the payload of a custom ID
+	 *
+	 * @param customId  an encoded custom ID
+	 * @param separator the index of the separator
+	 * @return the {@link ComponentPayload} or <code>null</code> if it is malformed
+	 */
+	static ComponentPayload decodePayload(String customId, int separator)
+	{
+		int version = Character.digit(customId.charAt(separator + 1), RADIX);
+		if (version < 0)
+		{
+			return null;
+		}
+		try
+		{
+			return ComponentPayload.decode(version, customId, separator + 2, customId.length());
+		}
+		catch (IllegalArgumentException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Checks whether a custom ID refers to a session
+	 *
+	 * @param customId  an encoded custom ID
+	 * @param separator the index of the separator
+	 * @return <code>true</code> if the payload of the custom ID is the key of a session, else <code>false</code>
+	 */
+	static boolean isSession(String customId, int separator)
+	{
+		return customId.charAt(separator) == SESSION_SEPARATOR;
+	}
+
+	/**
+	 * Gets the key of the session a custom ID refers to
+	 *
+	 * @param customId the custom ID
+	 * @return the key of the session or <code>-1</code> if the custom ID does not refer to a session
+	 */
+	static long decodeSessionKey(String customId)
+	{
+		int separator = isEncoded(customId) ? separatorIndex(customId) : -1;
+		if (separator == -1 || !isSession(customId, separator))
+		{
+			return -1;
+		}
+		ComponentPayload payload = decodePayload(customId, separator);
+		try
+		{
+			return payload == null ? -1 : payload.readLong();
+		}
+		catch (IllegalStateException e)
+		{
+			return -1;
+		}
+	}
+
+	/**
+	 * Gets the end of the first word of a custom ID in the legacy format
+	 *
+	 * @param customId the custom ID
+	 * @return the index after the last character of the name of the command
+	 */
+	static int legacyNameEnd(String customId)
+	{
+		int end = 0;
+		while (end < customId.length() && !CommandParser.isWhitespace(customId.charAt(end)))
+		{
+			end++;
+		}
+		return end;
+	}
+}
\ No newline at end of file
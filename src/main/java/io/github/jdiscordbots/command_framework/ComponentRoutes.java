@@ -0,0 +1,168 @@
+package io.github.jdiscordbots.command_framework;
+
+/**
+ * An immutable lookup of the commands that can be referred to by components.
+ *
+ * Commands are referred to by a hash of their name so that the custom IDs of existing components stay valid
+ * if the bot is restarted with the commands added in a different order.
+ * If multiple commands have the same hash, none of them can be found by it and their custom IDs contain the full name instead.
+ */
+final class ComponentRoutes
+{
+	static final ComponentRoutes EMPTY = new ComponentRoutes(new int[0], new String[0], new RegisteredCommand[0]);
+
+	private static final int FNV_OFFSET_BASIS = 0x811C9DC5;
+	private static final int FNV_PRIME = 0x01000193;
+
+	private final int[] hashes;
+	private final String[] names;
+	private final RegisteredCommand[] commands;
+
+	private ComponentRoutes(int[] hashes, String[] names, RegisteredCommand[] commands)
+	{
+		this.hashes = hashes;
+		this.names = names;
+		this.commands = commands;
+	}
+
+	/**
+	 * Computes the hash a command is referred to by
+	 *
+	 * @param name the name of the command
+	 * @return the 32 bit FNV-1a hash of the name, which does not change between restarts
+	 */
+	static int hash(String name)
+	{
+		int hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < name.length(); i++)
+		{
+			hash ^= name.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * Creates routes containing an additional or replaced command
+	 *
+	 * @param name    the name of the command
+	 * @param command the command
+	 * @return the new routes
+	 */
+	ComponentRoutes with(String name, RegisteredCommand command)
+	{
+		ComponentRoutes routes = without(name);
+		int hash = hash(name);
+		int index = routes.firstIndexOf(hash);
+		int length = routes.hashes.length;
+		int[] newHashes = new int[length + 1];
+		String[] newNames = new String[length + 1];
+		RegisteredCommand[] newCommands = new RegisteredCommand[length + 1];
+		System.arraycopy(routes.hashes, 0, newHashes, 0, index);
+		System.arraycopy(routes.names, 0, newNames, 0, index);
+		System.arraycopy(routes.commands, 0, newCommands, 0, index);
+		newHashes[index] = hash;
+		newNames[index] = name;
+		newCommands[index] = command;
+		System.arraycopy(routes.hashes, index, newHashes, index + 1, length - index);
+		System.arraycopy(routes.names, index, newNames, index + 1, length - index);
+		System.arraycopy(routes.commands, index, newCommands, index + 1, length - index);
+		return new ComponentRoutes(newHashes, newNames, newCommands);
+	}
+
+	/**
+	 * Creates routes without a command
+	 *
+	 * @param name the name of the command
+	 * @return the new routes
+	 */
+	ComponentRoutes without(String name)
+	{
+		int index = indexOf(name);
+		if (index == -1)
+		{
+			return this;
+		}
+		int length = hashes.length;
+		int[] newHashes = new int[length - 1];
+		String[] newNames = new String[length - 1];
+		RegisteredCommand[] newCommands = new RegisteredCommand[length - 1];
+		System.arraycopy(hashes, 0, newHashes, 0, index);
+		System.arraycopy(names, 0, newNames, 0, index);
+		System.arraycopy(commands, 0, newCommands, 0, index);
+		System.arraycopy(hashes, index + 1, newHashes, index, length - index - 1);
+		System.arraycopy(names, index + 1, newNames, index, length - index - 1);
+		System.arraycopy(commands, index + 1, newCommands, index, length - index - 1);
+		return new ComponentRoutes(newHashes, newNames, newCommands);
+	}
+
+	/**
+	 * Checks whether a command can be referred to by components
+	 *
+	 * @param name the name of the command
+	 * @return <code>true</code> if a command with that name has been added, else <code>false</code>
+	 */
+	boolean contains(String name)
+	{
+		return indexOf(name) != -1;
+	}
+
+	/**
+	 * Checks whether a command can be found by the hash of its name
+	 *
+	 * @param name the name of an added command
+	 * @return <code>true</code> if no other command has the same hash, else <code>false</code>
+	 */
+	boolean isUnique(String name)
+	{
+		return get(hash(name)) != null;
+	}
+
+	/**
+	 * Gets the command with a hash
+	 *
+	 * @param hash the hash of the name of the command
+	 * @return the command or <code>null</code> if there is no command or multiple commands with that hash
+	 */
+	RegisteredCommand get(int hash)
+	{
+		int index = firstIndexOf(hash);
+		if (index == hashes.length || hashes[index] != hash || (index + 1 < hashes.length && hashes[index + 1] == hash))
+		{
+			return null;
+		}
+		return commands[index];
+	}
+
+	private int indexOf(String name)
+	{
+		int hash = hash(name);
+		for (int i = firstIndexOf(hash); i < hashes.length && hashes[i] == hash; i++)
+		{
+			if (names[i].equals(name))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int firstIndexOf(int hash)
+	{
+		int low = 0;
+		int high = hashes.length;
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (hashes[mid] < hash)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
\ No newline at end of file
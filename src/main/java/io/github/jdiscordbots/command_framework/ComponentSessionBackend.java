@@ -0,0 +1,33 @@
+package io.github.jdiscordbots.command_framework;
+
+/**
+ * Stores the state of component sessions.
+ *
+ * The {@link ComponentSessionStore} keeps track of which sessions exist, when they expire and how much memory they use.
+ * A backend only stores the serialized state of every session by its key.
+ * All methods are called while the {@link ComponentSessionStore} is locked.
+ * @see CommandFramework#setComponentSessionBackend(ComponentSessionBackend)
+ * @see MappedFileComponentSessionBackend
+ */
+public interface ComponentSessionBackend
+{
+	/**
+	 * Stores the state of a session, replacing the previous state if the session exists.
+	 * @param key the key of the session
+	 * @param value the serialized state
+	 */
+	void put(long key, byte[] value);
+
+	/**
+	 * Loads the state of a session.
+	 * @param key the key of the session
+	 * @return the serialized state or <code>null</code> if there is no session with that key
+	 */
+	byte[] get(long key);
+
+	/**
+	 * Removes the state of a session.
+	 * @param key the key of the session
+	 */
+	void remove(long key);
+}
\ No newline at end of file
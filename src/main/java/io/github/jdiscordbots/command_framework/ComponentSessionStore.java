@@ -0,0 +1,236 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.github.jdiscordbots.command_framework.command.ComponentPayload;
+
+/**
+ * Keeps state of components that does not fit into their custom IDs, e.g. pagination cursors or pending confirmations.
+ *
+ * A session is created using {@link CommandFramework#createSessionComponentId(String, ComponentPayload, Duration)}.
+ * The custom ID only contains the key of the session and the state is passed to
+ * {@link io.github.jdiscordbots.command_framework.command.ICommand#onButtonClick(net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent, ComponentPayload)}
+ * when the component is used.
+ *
+ * Sessions are removed when their time to live has passed.
+ * If the sessions use more memory than the {@link CommandFramework#setComponentSessionMemoryLimit(long) limit}, the oldest sessions are evicted.
+ * Components referring to a removed session trigger the {@link CommandFramework#setUnknownButtonAction(java.util.function.BiConsumer) unknown button action}
+ * with {@link UnknownComponentReason#SESSION_EXPIRED}.
+ */
+public final class ComponentSessionStore
+{
+	/**
+	 * The estimated memory used by every session in addition to its state
+	 */
+	private static final int SESSION_OVERHEAD = 64;
+
+	private final TimingWheel timer;
+	private final Map<Long, Session> sessions = new LinkedHashMap<>();
+	private ComponentSessionBackend backend = new InMemoryComponentSessionBackend();
+	private long memoryLimit = 16 * 1024 * 1024;
+	private long memoryUsage;
+
+	/**
+	 * Creates a new store
+	 *
+	 * @param timer the {@link TimingWheel} used for removing expired sessions
+	 */
+	ComponentSessionStore(TimingWheel timer)
+	{
+		this.timer = timer;
+	}
+
+	/**
+	 * Replaces the backend, discarding all existing sessions
+	 *
+	 * @param backend the new {@link ComponentSessionBackend}
+	 */
+	synchronized void setBackend(ComponentSessionBackend backend)
+	{
+		for (Iterator<Map.Entry<Long, Session>> it = sessions.entrySet().iterator(); it.hasNext();)
+		{
+			Map.Entry<Long, Session> entry = it.next();
+			it.remove();
+			remove(entry.getKey(), entry.getValue());
+		}
+		this.backend = backend;
+	}
+
+	/**
+	 * Changes the maximum memory used by all sessions, evicting the oldest sessions if necessary
+	 *
+	 * @param memoryLimit the limit in bytes
+	 */
+	synchronized void setMemoryLimit(long memoryLimit)
+	{
+		this.memoryLimit = memoryLimit;
+		evict();
+	}
+
+	/**
+	 * Creates a session
+	 *
+	 * @param state the state of the session
+	 * @param ttl   the time after which the session expires
+	 * @return the key of the session
+	 * @throws IllegalArgumentException if the state is larger than the memory limit
+	 */
+	synchronized long create(ComponentPayload state, Duration ttl)
+	{
+		byte[] value = serialize(state);
+		if (value.length + SESSION_OVERHEAD > memoryLimit)
+		{
+			throw new IllegalArgumentException("The session state is larger than the memory limit.");
+		}
+		long key;
+		do
+		{
+			key = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+		}
+		while (sessions.containsKey(key));
+		Session session = new Session(value.length + SESSION_OVERHEAD);
+		long sessionKey = key;
+		session.timeout = timer.schedule(() -> expire(sessionKey, session), ttl.toMillis(), TimeUnit.MILLISECONDS);
+		backend.put(key, value);
+		sessions.put(key, session);
+		memoryUsage += session.size;
+		evict();
+		return key;
+	}
+
+	/**
+	 * Gets the state of a session
+	 *
+	 * @param key the key of the session
+	 * @return the state or <code>null</code> if the session does not exist
+	 */
+	synchronized ComponentPayload get(long key)
+	{
+		if (!sessions.containsKey(key))
+		{
+			return null;
+		}
+		byte[] value = backend.get(key);
+		if (value == null)
+		{
+			return null;
+		}
+		String encoded = new String(value, 1, value.length - 1, StandardCharsets.US_ASCII);
+		return ComponentPayload.decode(value[0], encoded, 0, encoded.length());
+	}
+
+	/**
+	 * Replaces the state of a session without changing when it expires.
+	 * @param customId the custom ID of a component referring to the session
+	 * @param state the new state
+	 * @return <code>true</code> if the state has been replaced, <code>false</code> if the session does not exist
+	 */
+	public synchronized boolean update(String customId, ComponentPayload state)
+	{
+		long key = ComponentIdCodec.decodeSessionKey(customId);
+		Session session = sessions.get(key);
+		if (session == null)
+		{
+			return false;
+		}
+		byte[] value = serialize(state);
+		backend.put(key, value);
+		memoryUsage += value.length + SESSION_OVERHEAD - session.size;
+		session.size = value.length + SESSION_OVERHEAD;
+		evict();
+		return true;
+	}
+
+	/**
+	 * Removes a session, e.g. when a confirmation has been completed.
+	 * @param customId the custom ID of a component referring to the session
+	 * @return <code>true</code> if the session has been removed, <code>false</code> if it did not exist
+	 */
+	public synchronized boolean invalidate(String customId)
+	{
+		long key = ComponentIdCodec.decodeSessionKey(customId);
+		Session session = sessions.remove(key);
+		if (session == null)
+		{
+			return false;
+		}
+		remove(key, session);
+		return true;
+	}
+
+	/**
+	 * Gets the number of sessions.
+	 * @return the number of sessions that have neither expired nor been evicted
+	 */
+	public synchronized int size()
+	{
+		return sessions.size();
+	}
+
+	/**
+	 * Gets the estimated memory used by all sessions.
+	 * @return the memory in bytes
+	 */
+	public synchronized long getMemoryUsage()
+	{
+		return memoryUsage;
+	}
+
+	private synchronized void expire(long key, Session session)
+	{
+		if (sessions.remove(key, session))
+		{
+			remove(key, session);
+		}
+	}
+
+	private void evict()
+	{
+		Iterator<Map.Entry<Long, Session>> it = sessions.entrySet().iterator();
+		while (memoryUsage > memoryLimit && it.hasNext())
+		{
+			Map.Entry<Long, Session> entry = it.next();
+			it.remove();
+			remove(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private void remove(long key, Session session)
+	{
+		session.timeout.cancel();
+		backend.remove(key);
+		memoryUsage -= session.size;
+	}
+
+	private static byte[] serialize(ComponentPayload state)
+	{
+		String encoded = state.getEncoded();
+		byte[] value = new byte[encoded.length() + 1];
+		value[0] = (byte) state.getVersion();
+		for (int i = 0; i < encoded.length(); i++)
+		{
+			value[i + 1] = (byte) encoded.charAt(i);
+		}
+		return value;
+	}
+
+	/**
+	 * The bookkeeping of a session, its state is stored in the {@link ComponentSessionBackend}
+	 */
+	private static final class Session
+	{
+		private int size;
+		private TimingWheel.Timeout timeout;
+
+		private Session(int size)
+		{
+			this.size = size;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.jdiscordbots.command_framework.command.slash.SlashCommandFrameworkEvent;
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+/**
+ * A bounded queue of commands waiting for execution.
+ *
+ * Commands with the same dispatch key are never executed concurrently and are executed in the order they have been received.
+ * The order of the queues only determines which dispatch key is served next.
+ * If the queue is full, a command is dropped according to the {@link OverloadPolicy}.
+ */
+final class DispatchQueue
+{
+	private static final Logger LOG=LoggerFactory.getLogger(DispatchQueue.class);
+	private static final long INTERACTION_DEADLINE_MILLIS = 3000;
+
+	private final Executor executor;
+	private final CommandHandler handler;
+	private final int capacity;
+	private final OverloadPolicy policy;
+	private final LinkedList<PendingCommand> slashCommands = new LinkedList<>();
+	private final LinkedList<PendingCommand> commands = new LinkedList<>();
+	private final Map<Long, ArrayDeque<PendingCommand>> pendingByKey = new HashMap<>();
+	private final Set<Long> activeKeys = new HashSet<>();
+	private volatile int size;
+
+	/**
+	 * Creates a new queue
+	 *
+	 * @param executor the {@link Executor} executing the commands
+	 * @param handler  the {@link CommandHandler} executing the commands
+	 * @param capacity the maximum number of waiting commands
+	 * @param policy   the {@link OverloadPolicy} used when the queue is full
+	 */
+	DispatchQueue(Executor executor, CommandHandler handler, int capacity, OverloadPolicy policy)
+	{
+		this.executor = executor;
+		this.handler = handler;
+		this.capacity = capacity;
+		this.policy = policy;
+	}
+
+	/**
+	 * Gets the number of commands waiting for execution
+	 *
+	 * @return the number of waiting commands
+	 */
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Adds a command to the queue
+	 *
+	 * @param commandContainer the command
+	 * @param key              the dispatch key of the command
+	 */
+	void offer(CommandContainer commandContainer, long key)
+	{
+		PendingCommand command = new PendingCommand(commandContainer, key);
+		PendingCommand dropped = null;
+		synchronized (this)
+		{
+			if (size >= capacity)
+			{
+				dropped = selectDropped(command);
+				if (dropped != command)
+				{
+					remove(dropped);
+				}
+			}
+			if (dropped != command)
+			{
+				add(command);
+			}
+			size = slashCommands.size() + commands.size();
+		}
+		if (dropped != null)
+		{
+			LOG.warn("Dropping command {} because the dispatch queue is full.", dropped.commandContainer.getInvoke());
+			dropped.commandContainer.event.reply(dropped.commandContainer.event.getFramework().getBusyMessage()).queue();
+		}
+		if (dropped != command)
+		{
+			executor.execute(this::drain);
+		}
+	}
+
+	private PendingCommand selectDropped(PendingCommand added)
+	{
+		switch (policy)
+		{
+		case DROP_OLDEST:
+			return commands.getFirst();
+		case DEADLINE_FIRST:
+			if (!added.isSlashCommand())
+			{
+				return added;
+			}
+			if (!commands.isEmpty())
+			{
+				return commands.getLast();
+			}
+			return slashCommands.getLast().deadline > added.deadline ? slashCommands.getLast() : added;
+		case REJECT:
+		default:
+			return added;
+		}
+	}
+
+	private void add(PendingCommand command)
+	{
+		if (policy == OverloadPolicy.DEADLINE_FIRST && command.isSlashCommand())
+		{
+			ListIterator<PendingCommand> it = slashCommands.listIterator(slashCommands.size());
+			while (it.hasPrevious())
+			{
+				if (it.previous().deadline <= command.deadline)
+				{
+					it.next();
+					break;
+				}
+			}
+			it.add(command);
+		}
+		else
+		{
+			commands.addLast(command);
+		}
+		pendingByKey.computeIfAbsent(command.key, k -> new ArrayDeque<>()).addLast(command);
+	}
+
+	private void remove(PendingCommand command)
+	{
+		if (!slashCommands.remove(command))
+		{
+			commands.remove(command);
+		}
+		ArrayDeque<PendingCommand> pending = pendingByKey.get(command.key);
+		pending.remove(command);
+		if (pending.isEmpty())
+		{
+			pendingByKey.remove(command.key);
+		}
+	}
+
+	private void drain()
+	{
+		PendingCommand next;
+		boolean more;
+		synchronized (this)
+		{
+			next = takeRunnable(slashCommands);
+			if (next == null)
+			{
+				next = takeRunnable(commands);
+			}
+			size = slashCommands.size() + commands.size();
+			more = next != null && size > 0;
+		}
+		if (more)
+		{
+			executor.execute(this::drain);
+		}
+		if (next != null)
+		{
+			run(next);
+		}
+	}
+
+	/**
+	 * Takes the oldest command of the first dispatch key in a queue that is not active.
+	 *
+	 * If a slash command is preferred because of its deadline, older commands with the same key are executed before it.
+	 */
+	private PendingCommand takeRunnable(LinkedList<PendingCommand> queue)
+	{
+		for (Iterator<PendingCommand> it = queue.iterator(); it.hasNext();)
+		{
+			PendingCommand command = it.next();
+			if (activeKeys.add(command.key))
+			{
+				PendingCommand oldest = pendingByKey.get(command.key).getFirst();
+				remove(oldest);
+				return oldest;
+			}
+		}
+		return null;
+	}
+
+	private void run(PendingCommand command)
+	{
+		try
+		{
+			handler.handle(command.commandContainer, true).whenComplete((result, e) -> finished(command.key));
+		}
+		catch (RuntimeException e)
+		{
+			LOG.error("An exception occurred executing the command {}.", command.commandContainer.getInvoke(), e);
+			finished(command.key);
+		}
+	}
+
+	private void finished(long key)
+	{
+		boolean more;
+		synchronized (this)
+		{
+			activeKeys.remove(key);
+			more = size > 0;
+		}
+		if (more)
+		{
+			executor.execute(this::drain);
+		}
+	}
+
+	private static final class PendingCommand
+	{
+		private final CommandContainer commandContainer;
+		private final long key;
+		private final long deadline;
+
+		private PendingCommand(CommandContainer commandContainer, long key)
+		{
+			this.commandContainer = commandContainer;
+			this.key = key;
+			this.deadline = commandContainer.event instanceof SlashCommandFrameworkEvent
+					? (commandContainer.event.getIdLong() >>> TimeUtil.TIMESTAMP_OFFSET) + TimeUtil.DISCORD_EPOCH + INTERACTION_DEADLINE_MILLIS
+					: Long.MAX_VALUE;
+		}
+
+		private boolean isSlashCommand()
+		{
+			return deadline != Long.MAX_VALUE;
+		}
+	}
+}
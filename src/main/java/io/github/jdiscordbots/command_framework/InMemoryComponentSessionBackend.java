@@ -0,0 +1,39 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link ComponentSessionBackend} keeping the state of all sessions on the heap.
+ */
+final class InMemoryComponentSessionBackend implements ComponentSessionBackend
+{
+	private final Map<Long, byte[]> values = new HashMap<>();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void put(long key, byte[] value)
+	{
+		values.put(key, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] get(long key)
+	{
+		return values.get(key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void remove(long key)
+	{
+		values.remove(key);
+	}
+}
\ No newline at end of file
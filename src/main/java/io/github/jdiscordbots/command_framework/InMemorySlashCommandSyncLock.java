@@ -0,0 +1,43 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link SlashCommandSyncLock} coordinating the shards of the current process.
+ *
+ * It remembers the fingerprint that has been acquired last so that every set of commands is registered once.
+ */
+final class InMemorySlashCommandSyncLock implements SlashCommandSyncLock
+{
+	private final AtomicReference<String> acquired = new AtomicReference<>();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletionStage<Boolean> tryAcquire(String fingerprint)
+	{
+		String current;
+		do
+		{
+			current = acquired.get();
+			if (fingerprint.equals(current))
+			{
+				return CompletableFuture.completedFuture(false);
+			}
+		}
+		while (!acquired.compareAndSet(current, fingerprint));
+		return CompletableFuture.completedFuture(true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void release(String fingerprint)
+	{
+		acquired.compareAndSet(fingerprint, null);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes tasks using an {@link Executor} such that tasks with the same key are executed one after another in submission order.
+ *
+ * A task is finished when the {@link CompletionStage} returned by it completes.
+ *
+ * Tasks with different keys may run concurrently.
+ * Keys without pending tasks do not use any memory.
+ * If the {@link Executor} rejects the tasks of a key (e.g. because it has been shut down), the pending tasks of the key are dropped
+ * so that later tasks with the same key are not blocked.
+ */
+final class KeyedSerialExecutor
+{
+	private static final Logger LOG=LoggerFactory.getLogger(KeyedSerialExecutor.class);
+
+	private final Executor executor;
+	private final Map<Long, SerialQueue> queues = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link KeyedSerialExecutor}
+	 *
+	 * @param executor the {@link Executor} used for running the tasks
+	 */
+	KeyedSerialExecutor(Executor executor)
+	{
+		this.executor = executor;
+	}
+
+	/**
+	 * Executes a task after all previously submitted tasks with the same key
+	 *
+	 * @param key  the key of the task
+	 * @param task the task to execute, returning a {@link CompletionStage} that completes when the task is finished
+	 */
+	void execute(long key, Supplier<? extends CompletionStage<?>> task)
+	{
+		SerialQueue[] created = new SerialQueue[1];
+		queues.compute(key, (k, queue) ->
+		{
+			if (queue == null)
+			{
+				queue = new SerialQueue(k);
+				created[0] = queue;
+			}
+			queue.tasks.add(task);
+			return queue;
+		});
+		if (created[0] != null)
+		{
+			schedule(created[0]);
+		}
+	}
+
+	private void schedule(SerialQueue queue)
+	{
+		try
+		{
+			executor.execute(queue);
+		}
+		catch (RejectedExecutionException e)
+		{
+			queues.remove(queue.key, queue);
+			int dropped = queue.tasks.size();
+			queue.tasks.clear();
+			LOG.error("The executor rejected the tasks with the key {}, {} pending tasks have been dropped.", queue.key, dropped, e);
+		}
+	}
+
+	/**
+	 * The pending tasks of a key.
+	 *
+	 * Only one instance of this class is scheduled for a key at any time.
+	 */
+	private final class SerialQueue implements Runnable
+	{
+		private final long key;
+		private final Queue<Supplier<? extends CompletionStage<?>>> tasks = new ConcurrentLinkedQueue<>();
+
+		private SerialQueue(long key)
+		{
+			this.key = key;
+		}
+
+		@Override
+		public void run()
+		{
+			Supplier<? extends CompletionStage<?>> task = tasks.poll();
+			try
+			{
+				task.get().whenComplete((result, e) -> next());
+			}
+			catch (RuntimeException e)
+			{
+				LOG.error("An exception occurred running a task with the key {}.", key, e);
+				next();
+			}
+		}
+
+		private void next()
+		{
+			if (queues.computeIfPresent(key, (k, queue) -> queue.tasks.isEmpty() ? null : queue) != null)
+			{
+				schedule(this);
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link ComponentSessionBackend} keeping the state of sessions in a memory-mapped file instead of the heap.
+ *
+ * Sessions are appended to the file and their space is reclaimed by moving the remaining sessions to the start of the file when it is full.
+ * Only the offsets of the sessions are kept on the heap.
+ * The file is overwritten when the backend is created and sessions are not restored after a restart.
+ *
+ * The capacity should be at least the {@link CommandFramework#setComponentSessionMemoryLimit(long) memory limit} of the sessions.
+ */
+public final class MappedFileComponentSessionBackend implements ComponentSessionBackend
+{
+	private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+	private final MappedByteBuffer buffer;
+	private final Map<Long, Integer> offsets = new HashMap<>();
+	private int end;
+
+	/**
+	 * Creates a backend using a file.
+	 * @param file the file the sessions are stored in
+	 * @param capacity the size of the file in bytes
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public MappedFileComponentSessionBackend(Path file, int capacity) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws IllegalStateException if the file is full
+	 */
+	@Override
+	public void put(long key, byte[] value)
+	{
+		remove(key);
+		int size = HEADER_SIZE + value.length;
+		if (end + size > buffer.capacity())
+		{
+			compact();
+			if (end + size > buffer.capacity())
+			{
+				throw new IllegalStateException("The component session file is full.");
+			}
+		}
+		buffer.putLong(end, key);
+		buffer.putInt(end + Long.BYTES, value.length);
+		for (int i = 0; i < value.length; i++)
+		{
+			buffer.put(end + HEADER_SIZE + i, value[i]);
+		}
+		offsets.put(key, end);
+		end += size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] get(long key)
+	{
+		Integer offset = offsets.get(key);
+		if (offset == null)
+		{
+			return null;
+		}
+		byte[] value = new byte[buffer.getInt(offset + Long.BYTES)];
+		for (int i = 0; i < value.length; i++)
+		{
+			value[i] = buffer.get(offset + HEADER_SIZE + i);
+		}
+		return value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void remove(long key)
+	{
+		offsets.remove(key);
+	}
+
+	private void compact()
+	{
+		int[] sorted = new int[offsets.size()];
+		int i = 0;
+		for (int offset : offsets.values())
+		{
+			sorted[i++] = offset;
+		}
+		Arrays.sort(sorted);
+		int target = 0;
+		for (int offset : sorted)
+		{
+			int size = HEADER_SIZE + buffer.getInt(offset + Long.BYTES);
+			if (offset != target)
+			{
+				for (int j = 0; j < size; j++)
+				{
+					buffer.put(target + j, buffer.get(offset + j));
+				}
+				offsets.put(buffer.getLong(target), target);
+			}
+			target += size;
+		}
+		end = target;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package io.github.jdiscordbots.command_framework;
+
+/**
+ * Determines which command is dropped if the dispatch queue is full.
+ *
+ * Dropped commands are answered with the {@link CommandFramework#setBusyMessage(String) busy message}.
+ * @see CommandFramework#setDispatchQueue(int, OverloadPolicy)
+ */
+public enum OverloadPolicy
+{
+	/**
+	 * The command that has been waiting the longest is dropped.
+	 */
+	DROP_OLDEST,
+	/**
+	 * The newly received command is dropped.
+	 */
+	REJECT,
+	/**
+	 * Slash commands are executed before text commands, ordered by the deadline for answering the interaction.
+	 * This only reorders commands with different dispatch keys: commands with the same key (e.g. in the same channel) are still executed in the order they have been received,
+	 * so older text commands with the same key are executed before a waiting slash command.
+	 * The command that would be executed last is dropped.
+	 */
+	DEADLINE_FIRST
+}
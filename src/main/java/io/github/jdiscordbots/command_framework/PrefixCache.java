@@ -0,0 +1,124 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded cache of the prefixes of guilds.
+ *
+ * If the cache is full, arbitrary entries are evicted.
+ * If the prefixes of a guild cannot be loaded, the default prefix is used for that guild for a while before the prefixes are loaded again,
+ * so that a failing {@link PrefixProvider} is not called for every message.
+ */
+final class PrefixCache
+{
+	private static final Logger LOG=LoggerFactory.getLogger(PrefixCache.class);
+	private static final long RETRY_DELAY_MILLIS=30_000;
+	private static final PrefixTrie DEFAULT_PREFIX=new PrefixTrie(Collections.emptyList());
+
+	private final PrefixProvider provider;
+	private final int maxSize;
+	private final TimingWheel timer;
+	private final Map<Long, CompletableFuture<PrefixTrie>> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new cache
+	 *
+	 * @param provider the {@link PrefixProvider} used for loading prefixes
+	 * @param maxSize  the maximum number of guilds in the cache
+	 * @param timer    the {@link TimingWheel} used for retrying failed loads
+	 */
+	PrefixCache(PrefixProvider provider, int maxSize, TimingWheel timer)
+	{
+		this.provider = provider;
+		this.maxSize = maxSize;
+		this.timer = timer;
+	}
+
+	/**
+	 * Gets the prefixes of a guild, loading them if they are not cached.
+	 *
+	 * This method does not wait for the prefixes to be loaded.
+	 * @param guildId the ID of the guild
+	 * @return a {@link CompletableFuture} completing with the prefixes of the guild, they are empty if the default prefix should be used
+	 */
+	CompletableFuture<PrefixTrie> get(long guildId)
+	{
+		CompletableFuture<PrefixTrie> prefixes = cache.get(guildId);
+		if (prefixes == null)
+		{
+			CompletableFuture<PrefixTrie> loading = new CompletableFuture<>();
+			prefixes = cache.putIfAbsent(guildId, loading);
+			if (prefixes == null)
+			{
+				prefixes = loading;
+				evictIfFull(guildId);
+				load(guildId, loading);
+			}
+		}
+		return prefixes;
+	}
+
+	private void load(long guildId, CompletableFuture<PrefixTrie> loading)
+	{
+		try
+		{
+			provider.getPrefixes(guildId).whenComplete((prefixes, e) ->
+			{
+				if (e != null)
+				{
+					loadFailed(guildId, loading, e);
+					return;
+				}
+				try
+				{
+					loading.complete(prefixes == null ? DEFAULT_PREFIX : new PrefixTrie(prefixes));
+				}
+				catch (RuntimeException creationFailed)
+				{
+					loadFailed(guildId, loading, creationFailed);
+				}
+			});
+		}
+		catch (RuntimeException e)
+		{
+			loadFailed(guildId, loading, e);
+		}
+	}
+
+	private void loadFailed(long guildId, CompletableFuture<PrefixTrie> loading, Throwable e)
+	{
+		LOG.error("Cannot load the prefixes of the guild {}, using the default prefix for {}ms.", guildId, RETRY_DELAY_MILLIS, e);
+		loading.complete(DEFAULT_PREFIX);
+		timer.schedule(() -> cache.remove(guildId, loading), RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	private void evictIfFull(long insertedGuildId)
+	{
+		Iterator<Long> it = cache.keySet().iterator();
+		while (cache.size() > maxSize && it.hasNext())
+		{
+			if (it.next() != insertedGuildId)
+			{
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes the prefixes of a guild from the cache so they are loaded again when they are needed.
+	 *
+	 * @param guildId the ID of the guild
+	 */
+	void invalidate(long guildId)
+	{
+		cache.remove(guildId);
+	}
+}
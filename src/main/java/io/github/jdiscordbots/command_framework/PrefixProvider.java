@@ -0,0 +1,26 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.Collection;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Provides the prefixes that are used for text commands in a guild.
+ *
+ * Results are cached by the {@link CommandFramework} until they are evicted or invalidated using {@link CommandFramework#invalidatePrefixes(long)}.
+ * @see CommandFramework#setPrefixProvider(PrefixProvider)
+ */
+@FunctionalInterface
+public interface PrefixProvider
+{
+	/**
+	 * Loads the prefixes of a guild.
+	 * 
+	 * This method is called from the thread receiving the message and should not block.
+	 * Messages received while the prefixes are loaded are processed as soon as the returned {@link CompletionStage} completes.
+	 * If the returned collection is empty or <code>null</code>, the {@link CommandFramework#getPrefix() default prefix} is used.
+	 * If loading the prefixes fails, the default prefix is used for a while before they are loaded again.
+	 * @param guildId the ID of the guild
+	 * @return a {@link CompletionStage} completing with all prefixes of the guild
+	 */
+	CompletionStage<? extends Collection<String>> getPrefixes(long guildId);
+}
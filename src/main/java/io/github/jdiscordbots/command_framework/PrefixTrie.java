@@ -0,0 +1,106 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A trie containing the prefixes of a guild.
+ *
+ * All prefixes are tested with a single pass over the beginning of the message.
+ * Instances must not be modified after construction.
+ */
+final class PrefixTrie
+{
+	private final Node root = new Node();
+	private final boolean empty;
+
+	/**
+	 * Creates a trie containing the given prefixes
+	 *
+	 * @param prefixes the prefixes
+	 */
+	PrefixTrie(Collection<String> prefixes)
+	{
+		for (String prefix : prefixes)
+		{
+			Node node = root;
+			for (int i = 0; i < prefix.length(); i++)
+			{
+				node = node.getOrCreateChild(prefix.charAt(i));
+			}
+			node.terminal = true;
+		}
+		empty = prefixes.isEmpty();
+	}
+
+	/**
+	 * Checks if the trie does not contain any prefix
+	 *
+	 * @return <code>true</code> if there are no prefixes, else <code>false</code>
+	 */
+	boolean isEmpty()
+	{
+		return empty;
+	}
+
+	/**
+	 * Finds the longest prefix the content starts with
+	 *
+	 * @param content the content of the message
+	 * @return the length of the longest matching prefix or <code>-1</code> if no prefix matches
+	 */
+	int match(String content)
+	{
+		Node node = root;
+		int longest = node.terminal ? 0 : -1;
+		for (int i = 0; i < content.length(); i++)
+		{
+			node = node.getChild(content.charAt(i));
+			if (node == null)
+			{
+				break;
+			}
+			if (node.terminal)
+			{
+				longest = i + 1;
+			}
+		}
+		return longest;
+	}
+
+	private static final class Node
+	{
+		private static final char[] NO_KEYS = new char[0];
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		private char[] keys = NO_KEYS;
+		private Node[] children = NO_CHILDREN;
+		private boolean terminal;
+
+		private Node getChild(char c)
+		{
+			for (int i = 0; i < keys.length; i++)
+			{
+				if (keys[i] == c)
+				{
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		private Node getOrCreateChild(char c)
+		{
+			Node child = getChild(c);
+			if (child == null)
+			{
+				child = new Node();
+				keys = Arrays.copyOf(keys, keys.length + 1);
+				children = Arrays.copyOf(children, children.length + 1);
+				keys[keys.length - 1] = c;
+				children[children.length - 1] = child;
+			}
+			return child;
+		}
+	}
+}
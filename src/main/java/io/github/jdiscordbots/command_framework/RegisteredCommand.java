@@ -0,0 +1,144 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.github.jdiscordbots.command_framework.command.ArgumentTemplate;
+import io.github.jdiscordbots.command_framework.command.AutoCompleteSource;
+import io.github.jdiscordbots.command_framework.command.CommandEvent;
+import io.github.jdiscordbots.command_framework.command.Cooldown;
+import io.github.jdiscordbots.command_framework.command.ICommand;
+import io.github.jdiscordbots.command_framework.command.PrefixIndex;
+import io.github.jdiscordbots.command_framework.command.slash.SlashArgumentBinder;
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+
+/**
+ * A command together with the state the framework keeps for it.
+ *
+ * One instance is created per {@link ICommand} object and shared by all of its aliases.
+ */
+final class RegisteredCommand
+{
+	private static final long GLOBAL_KEY = 0;
+
+	private final ICommand command;
+	private final TokenBuckets userBuckets;
+	private final TokenBuckets guildBuckets;
+	private final TokenBuckets globalBuckets;
+	private final SlashArgumentBinder slashArgumentBinder;
+	private final Map<String, AutoCompleteSource> autoCompleteSources;
+
+	/**
+	 * Registers a command
+	 *
+	 * @param command the command
+	 */
+	RegisteredCommand(ICommand command)
+	{
+		this.command = command;
+		Cooldown cooldown = command.getCooldown();
+		this.userBuckets = cooldown == null ? null : createBuckets(cooldown.getUserLimit());
+		this.guildBuckets = cooldown == null ? null : createBuckets(cooldown.getGuildLimit());
+		this.globalBuckets = cooldown == null ? null : createBuckets(cooldown.getGlobalLimit());
+		this.slashArgumentBinder = new SlashArgumentBinder(command.getExpectedArguments());
+		this.autoCompleteSources = createAutoCompleteSources(command);
+	}
+
+	private static Map<String, AutoCompleteSource> createAutoCompleteSources(ICommand command)
+	{
+		Map<String, AutoCompleteSource> sources = new HashMap<>();
+		for (ArgumentTemplate arg : command.getExpectedArguments())
+		{
+			AutoCompleteSource source = command.getAutoCompleteSource(arg.getName());
+			if (source == null && arg.hasChoices() && arg.getChoices().length > OptionData.MAX_CHOICES)
+			{
+				source = new PrefixIndex(Arrays.asList(arg.getChoices()));
+			}
+			if (source != null)
+			{
+				sources.put(arg.getName(), source);
+			}
+		}
+		return sources.isEmpty() ? Collections.emptyMap() : sources;
+	}
+
+	private static TokenBuckets createBuckets(Cooldown.Limit limit)
+	{
+		return limit == null ? null : new TokenBuckets(limit);
+	}
+
+	/**
+	 * Gets the command
+	 *
+	 * @return the {@link ICommand}
+	 */
+	ICommand getCommand()
+	{
+		return command;
+	}
+
+	/**
+	 * Gets the binder extracting the arguments of the command when it is invoked as a slash command
+	 *
+	 * @return the {@link SlashArgumentBinder} compiled from the expected arguments of the command
+	 */
+	SlashArgumentBinder getSlashArgumentBinder()
+	{
+		return slashArgumentBinder;
+	}
+
+	/**
+	 * Gets the source of the values suggested for an argument
+	 *
+	 * @param argumentName the name of the argument
+	 * @return the {@link AutoCompleteSource} or <code>null</code> if the argument does not use autocompletion
+	 */
+	AutoCompleteSource getAutoCompleteSource(String argumentName)
+	{
+		return autoCompleteSources.get(argumentName);
+	}
+
+	/**
+	 * Checks the cooldown of the command and uses it if possible
+	 *
+	 * A use rejected by the guild or global limit does not count towards the limits checked before.
+	 * @param event the {@link CommandEvent} of the invoked command
+	 * @return <code>true</code> if the command may be executed, <code>false</code> if it is on cooldown
+	 */
+	boolean tryUse(CommandEvent event)
+	{
+		long now = System.nanoTime();
+		long userId = event.getAuthor().getIdLong();
+		if (userBuckets != null && !userBuckets.tryAcquire(userId, now))
+		{
+			return false;
+		}
+		long guildId = event.getChannel() instanceof GuildChannel ? ((GuildChannel) event.getChannel()).getGuild().getIdLong() : -1;
+		if (guildBuckets != null && guildId != -1 && !guildBuckets.tryAcquire(guildId, now))
+		{
+			releaseUser(userId, now);
+			return false;
+		}
+		if (globalBuckets != null && !globalBuckets.tryAcquire(GLOBAL_KEY, now))
+		{
+			releaseUser(userId, now);
+			if (guildBuckets != null && guildId != -1)
+			{
+				guildBuckets.release(guildId, now);
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private void releaseUser(long userId, long now)
+	{
+		if (userBuckets != null)
+		{
+			userBuckets.release(userId, now);
+		}
+	}
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package io.github.jdiscordbots.command_framework;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import io.github.jdiscordbots.command_framework.command.ArgumentTemplate;
 import io.github.jdiscordbots.command_framework.command.ICommand;
@@ -18,18 +19,32 @@ import net.dv8tion.jda.api.interactions.commands.build.SubcommandGroupData;
 final class SlashCommandBuilder
 {
 	private final SlashCommandData commandData;
+	private final Predicate<String> autoComplete;
 	private SubcommandGroupData group;
 	private SubcommandData subcommand;
 	
-	public SlashCommandBuilder(SlashCommandData commandData)
+	public SlashCommandBuilder(SlashCommandData commandData, Predicate<String> autoComplete)
 	{
 		this.commandData = commandData;
+		this.autoComplete = autoComplete;
 	}
 
 	public static CommandData buildSlashCommand(String name, ICommand cmd)
+	{
+		return buildSlashCommand(name, cmd, argument -> false);
+	}
+
+	/**
+	 * Builds the slash command of a command
+	 * @param name the name of the command
+	 * @param cmd the command
+	 * @param autoComplete tests whether an argument (by its name) uses autocompletion instead of choices
+	 * @return the {@link CommandData} of the slash command
+	 */
+	public static CommandData buildSlashCommand(String name, ICommand cmd, Predicate<String> autoComplete)
 	{
 		SlashCommandData commandData=Commands.slash(name, cmd.help());
-		SlashCommandBuilder subCommandInfo=new SlashCommandBuilder(commandData);
+		SlashCommandBuilder subCommandInfo=new SlashCommandBuilder(commandData, autoComplete);
 		for (ArgumentTemplate arg : cmd.getExpectedArguments())
 		{
 			subCommandInfo.setupSlashArgument(arg);
@@ -84,7 +99,11 @@ final class SlashCommandBuilder
 	{
 		OptionData option=new OptionData(arg.getType(), arg.getName(), arg.getDescription());
 		option.setRequired(arg.isRequired());
-		if(arg.hasChoices())
+		if(arg.getType().canSupportChoices()&&autoComplete.test(arg.getName()))
+		{
+			option.setAutoComplete(true);
+		}
+		else if(arg.hasChoices())
 		{
 			for (String choice : arg.getChoices())
 			{
@@ -0,0 +1,167 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.api.utils.data.SerializableData;
+
+/**
+ * Computes fingerprints of slash commands.
+ *
+ * A fingerprint is a hash of the canonical JSON representation of a set of commands.
+ */
+final class SlashCommandFingerprints
+{
+	private SlashCommandFingerprints()
+	{
+		/* Prevent instantiation */
+	}
+
+	/**
+	 * Computes the fingerprint of a set of commands.
+	 *
+	 * The fingerprint does not depend on the order of the commands or the order of the keys in their JSON representation.
+	 * Empty values are ignored so that commands built locally and commands retrieved from Discord can be compared.
+	 * @param commands the commands, e.g. {@link net.dv8tion.jda.api.interactions.commands.build.CommandData CommandData}
+	 * @return the fingerprint as a hexadecimal {@link String}
+	 */
+	static String fingerprint(Collection<? extends SerializableData> commands)
+	{
+		Set<String> canonical = new TreeSet<>();
+		for (SerializableData command : commands)
+		{
+			canonical.add(canonicalJson(command));
+		}
+		return hash(canonical);
+	}
+
+	/**
+	 * Computes the fingerprint of a set of commands from their canonical JSON representations
+	 *
+	 * @param canonicalJson the canonical JSON representations of the commands in any order
+	 * @return the fingerprint as a hexadecimal {@link String}
+	 * @see SlashCommandFingerprints#canonicalJson(SerializableData)
+	 */
+	static String fingerprintCanonical(Collection<String> canonicalJson)
+	{
+		return hash(new TreeSet<>(canonicalJson));
+	}
+
+	/**
+	 * Creates the canonical JSON representation of a command with sorted keys and without empty values
+	 *
+	 * @param command the command
+	 * @return the canonical JSON representation
+	 */
+	static String canonicalJson(SerializableData command)
+	{
+		StringBuilder sb = new StringBuilder();
+		appendCanonical(sb, DataObject.fromJson(command.toData().toJson()).toMap());
+		return sb.toString();
+	}
+
+	private static String hash(Set<String> sortedCanonicalJson)
+	{
+		MessageDigest digest = sha256();
+		for (String json : sortedCanonicalJson)
+		{
+			digest.update(json.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) '\n');
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest())
+		{
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static void appendCanonical(StringBuilder sb, Object value)
+	{
+		if (value instanceof Map)
+		{
+			sb.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : new TreeMap<>((Map<?, ?>) value).entrySet())
+			{
+				if (isEmpty(entry.getValue()))
+				{
+					continue;
+				}
+				if (!first)
+				{
+					sb.append(',');
+				}
+				first = false;
+				appendString(sb, String.valueOf(entry.getKey()));
+				sb.append(':');
+				appendCanonical(sb, entry.getValue());
+			}
+			sb.append('}');
+		}
+		else if (value instanceof List)
+		{
+			sb.append('[');
+			List<?> list = (List<?>) value;
+			for (int i = 0; i < list.size(); i++)
+			{
+				if (i != 0)
+				{
+					sb.append(',');
+				}
+				appendCanonical(sb, list.get(i));
+			}
+			sb.append(']');
+		}
+		else if (value instanceof String)
+		{
+			appendString(sb, (String) value);
+		}
+		else
+		{
+			sb.append(value);
+		}
+	}
+
+	private static boolean isEmpty(Object value)
+	{
+		return value == null
+				|| value instanceof Map && ((Map<?, ?>) value).isEmpty()
+				|| value instanceof List && ((List<?>) value).isEmpty();
+	}
+
+	private static void appendString(StringBuilder sb, String s)
+	{
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\')
+			{
+				sb.append('\\');
+			}
+			sb.append(c);
+		}
+		sb.append('"');
+	}
+
+	private static MessageDigest sha256()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	}
+}
\ No newline at end of file
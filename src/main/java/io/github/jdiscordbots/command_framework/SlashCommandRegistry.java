@@ -0,0 +1,246 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.dv8tion.jda.api.interactions.commands.Command;
+
+/**
+ * The slash commands that are registered at Discord per scope.
+ *
+ * For every scope, the registry knows the IDs of the registered commands by their names and the {@link SlashCommandFingerprints fingerprint} of the registered commands if they are in sync.
+ * This allows changing single commands without retrieving all commands of a scope first.
+ *
+ * If a file is configured, the registry is loaded from it and saved to it so that unchanged commands are not registered again after a restart.
+ * The file contains one line per scope consisting of the scope, the fingerprint (or <code>-</code>) and the commands as <code>name=id</code>, separated by spaces.
+ */
+final class SlashCommandRegistry
+{
+	/**
+	 * The scope of global commands, guilds use their ID as the scope
+	 */
+	static final long GLOBAL_SCOPE=0;
+
+	private static final Logger LOG=LoggerFactory.getLogger(SlashCommandRegistry.class);
+	private static final long SAVE_DELAY_MILLIS=1000;
+	private static final String NO_FINGERPRINT="-";
+	/**
+	 * Writes the files so that slow disks do not delay the tasks of the {@link TimingWheel}
+	 */
+	private static final ThreadPoolExecutor SAVE_EXECUTOR=createSaveExecutor();
+
+	private final Path file;
+	private final TimingWheel timer;
+	private final Map<Long, Scope> scopes = new ConcurrentHashMap<>();
+	private boolean savePending;
+
+	/**
+	 * Creates a new registry
+	 *
+	 * @param file  the file the registry is persisted in or <code>null</code> if it should only be kept in memory
+	 * @param timer the {@link TimingWheel} used for delaying writes to the file
+	 */
+	SlashCommandRegistry(Path file, TimingWheel timer)
+	{
+		this.file = file;
+		this.timer = timer;
+		if (file != null)
+		{
+			load();
+		}
+	}
+
+	private void load()
+	{
+		try
+		{
+			for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+			{
+				String[] parts = line.split(" ");
+				if (parts.length >= 2)
+				{
+					Map<String, Long> ids = new HashMap<>();
+					for (int i = 2; i < parts.length; i++)
+					{
+						int separator = parts[i].indexOf('=');
+						ids.put(parts[i].substring(0, separator), Long.parseLong(parts[i].substring(separator + 1)));
+					}
+					String fingerprint = NO_FINGERPRINT.equals(parts[1]) ? null : parts[1];
+					scopes.put(Long.parseLong(parts[0]), new Scope(fingerprint, ids));
+				}
+			}
+		}
+		catch (NoSuchFileException e)
+		{
+			LOG.debug("The slash command registry file {} does not exist yet.", file);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			LOG.warn("Cannot load the slash command registry from {}.", file, e);
+		}
+	}
+
+	/**
+	 * Checks whether the commands of a scope are known to match a fingerprint
+	 *
+	 * @param scope       the ID of the guild or {@link SlashCommandRegistry#GLOBAL_SCOPE}
+	 * @param fingerprint the fingerprint of the commands
+	 * @return <code>true</code> if the commands have been registered with the same fingerprint, else <code>false</code>
+	 */
+	boolean matches(long scope, String fingerprint)
+	{
+		Scope state = scopes.get(scope);
+		// scopes only known partially (e.g. retrieved before deleting a single command) have no fingerprint and are never in sync
+		return state != null && state.fingerprint != null && fingerprint.equals(state.fingerprint);
+	}
+
+	/**
+	 * Stores all commands registered in a scope
+	 *
+	 * @param scope       the ID of the guild or {@link SlashCommandRegistry#GLOBAL_SCOPE}
+	 * @param fingerprint the fingerprint of the registered commands or <code>null</code> if they are not in sync
+	 * @param registered  the registered commands
+	 */
+	void update(long scope, String fingerprint, Collection<Command> registered)
+	{
+		Map<String, Long> ids = new HashMap<>();
+		for (Command command : registered)
+		{
+			ids.put(command.getName(), command.getIdLong());
+		}
+		scopes.put(scope, new Scope(fingerprint, ids));
+		scheduleSave();
+	}
+
+	/**
+	 * Stores that a single command has been created, changed or deleted in a scope.
+	 *
+	 * If the registered commands of the scope have been in sync with the previous commands, the fingerprint of the new commands is stored.
+	 * @param scope          the ID of the guild or {@link SlashCommandRegistry#GLOBAL_SCOPE}
+	 * @param name           the name of the command
+	 * @param id             the ID of the command or <code>null</code> if it has been deleted
+	 * @param oldFingerprint the fingerprint of all commands before the change
+	 * @param newFingerprint the fingerprint of all commands after the change
+	 */
+	void updateCommand(long scope, String name, Long id, String oldFingerprint, String newFingerprint)
+	{
+		scopes.compute(scope, (k, state) ->
+		{
+			Map<String, Long> ids = state == null ? new HashMap<>() : new HashMap<>(state.ids);
+			if (id == null)
+			{
+				ids.remove(name);
+			}
+			else
+			{
+				ids.put(name, id);
+			}
+			// a scope that has not been in sync before (or has not been known at all) stays out of sync
+			String fingerprint = state != null && state.fingerprint != null && oldFingerprint.equals(state.fingerprint) ? newFingerprint : null;
+			return new Scope(fingerprint, ids);
+		});
+		scheduleSave();
+	}
+
+	/**
+	 * Gets the IDs of the commands registered in a scope
+	 *
+	 * @param scope the ID of the guild or {@link SlashCommandRegistry#GLOBAL_SCOPE}
+	 * @return the IDs of the commands by their names or <code>null</code> if the commands of the scope are unknown
+	 */
+	Map<String, Long> getIds(long scope)
+	{
+		Scope state = scopes.get(scope);
+		return state == null ? null : state.ids;
+	}
+
+	private void scheduleSave()
+	{
+		if (file == null)
+		{
+			return;
+		}
+		synchronized (this)
+		{
+			if (savePending)
+			{
+				return;
+			}
+			savePending = true;
+		}
+		timer.schedule(() -> SAVE_EXECUTOR.execute(this::save), SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	private static ThreadPoolExecutor createSaveExecutor()
+	{
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), r ->
+		{
+			Thread t = new Thread(r, "command-framework-registry-writer");
+			t.setDaemon(true);
+			return t;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private void save()
+	{
+		synchronized (this)
+		{
+			savePending = false;
+		}
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try
+		{
+			try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))
+			{
+				for (Map.Entry<Long, Scope> entry : scopes.entrySet())
+				{
+					Scope state = entry.getValue();
+					writer.write(entry.getKey() + " " + (state.fingerprint == null ? NO_FINGERPRINT : state.fingerprint));
+					for (Map.Entry<String, Long> id : state.ids.entrySet())
+					{
+						writer.write(" " + id.getKey() + "=" + id.getValue());
+					}
+					writer.newLine();
+				}
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			LOG.warn("Cannot save the slash command registry to {}.", file, e);
+		}
+	}
+
+	/**
+	 * The registered commands of a scope
+	 */
+	private static final class Scope
+	{
+		private final String fingerprint;
+		private final Map<String, Long> ids;
+
+		private Scope(String fingerprint, Map<String, Long> ids)
+		{
+			this.fingerprint = fingerprint;
+			this.ids = Collections.unmodifiableMap(ids);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Makes sure global slash commands are registered only once.
+ *
+ * Every shard triggers the registration of global slash commands when it is ready.
+ * Before registering, the shard has to acquire the lock for the fingerprint of the commands and skips the registration if that fails.
+ * The default implementation only coordinates the shards of one process.
+ * Bots running in multiple processes can provide an implementation shared by all processes, e.g. using a database.
+ * @see CommandFramework#setSlashCommandSyncLock(SlashCommandSyncLock)
+ */
+public interface SlashCommandSyncLock
+{
+	/**
+	 * Tries to acquire the right to register a set of global slash commands.
+	 * 
+	 * This should succeed only once per fingerprint unless the registration has been {@link SlashCommandSyncLock#release(String) released}.
+	 * This method is called from the thread receiving events and should not block.
+	 * @param fingerprint a hash identifying the set of commands
+	 * @return a {@link CompletionStage} completing with <code>true</code> if the commands should be registered by the caller, else <code>false</code>
+	 */
+	CompletionStage<Boolean> tryAcquire(String fingerprint);
+
+	/**
+	 * Releases the right to register a set of global slash commands because the registration failed.
+	 * 
+	 * The next attempt to {@link SlashCommandSyncLock#tryAcquire(String) acquire} the same fingerprint should succeed.
+	 * @param fingerprint a hash identifying the set of commands
+	 */
+	void release(String fingerprint);
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package io.github.jdiscordbots.command_framework;
+
+/**
+ * The progress of registering slash commands in guilds.
+ *
+ * @see CommandFramework#setSlashCommandSyncProgressListener(java.util.function.Consumer)
+ */
+public final class SlashCommandSyncProgress
+{
+	private final int completed;
+	private final int failed;
+	private final int remaining;
+
+	SlashCommandSyncProgress(int completed, int failed, int remaining)
+	{
+		this.completed = completed;
+		this.failed = failed;
+		this.remaining = remaining;
+	}
+
+	/**
+	 * Gets the number of guilds whose slash commands have been registered successfully.
+	 * @return the number of completed guilds
+	 */
+	public int getCompleted()
+	{
+		return completed;
+	}
+
+	/**
+	 * Gets the number of guilds whose slash commands could not be registered, even after retrying.
+	 * @return the number of failed guilds
+	 */
+	public int getFailed()
+	{
+		return failed;
+	}
+
+	/**
+	 * Gets the number of guilds whose slash commands are waiting to be registered or are being registered.
+	 * @return the number of remaining guilds
+	 */
+	public int getRemaining()
+	{
+		return remaining;
+	}
+
+	/**
+	 * Checks whether all guilds have been processed.
+	 * @return <code>true</code> if no guilds are remaining, else <code>false</code>
+	 */
+	public boolean isDone()
+	{
+		return remaining == 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "SlashCommandSyncProgress[completed=" + completed + ", failed=" + failed + ", remaining=" + remaining + "]";
+	}
+}
\ No newline at end of file
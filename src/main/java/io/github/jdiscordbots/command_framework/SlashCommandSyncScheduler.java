@@ -0,0 +1,372 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+
+/**
+ * Registers slash commands in guilds without flooding the rate limiter.
+ *
+ * At most a fixed number of guilds are synchronized concurrently and new synchronizations are started at a limited rate.
+ * Guilds with recent activity are synchronized first.
+ * Activity is only known for guilds where commands have been used since the bot started,
+ * so the guilds becoming ready right after startup are processed in the order they have been submitted.
+ * Failed synchronizations are retried with exponential backoff unless Discord rejected the request.
+ * A guild is never synchronized twice at the same time, work submitted while it is synchronized (or waiting for a retry) waits until that has finished.
+ *
+ * A synchronization is a task returning a {@link CompletionStage} that completes when the commands of the guild are registered.
+ * Submitting a guild that is already waiting does not synchronize it twice.
+ * Changes of single commands are run after the changes already waiting for the same guild unless a full synchronization is waiting that includes them anyway.
+ */
+final class SlashCommandSyncScheduler
+{
+	private static final Logger LOG=LoggerFactory.getLogger(SlashCommandSyncScheduler.class);
+	private static final int MAX_ATTEMPTS=5;
+	private static final long INITIAL_BACKOFF_MILLIS=1000;
+	private static final long ACTIVITY_RESOLUTION_MILLIS=60_000;
+
+	private final TimingWheel timer;
+	private final Map<Long, Long> lastActivity = new ConcurrentHashMap<>();
+	private final PriorityQueue<Sync> queue = new PriorityQueue<>();
+	private final Map<Long, Sync> waiting = new HashMap<>();
+	private final Set<Long> busyGuilds = new HashSet<>();
+	private volatile Consumer<SlashCommandSyncProgress> progressListener;
+	private int maxConcurrent;
+	private long intervalNanos;
+	private long nextStart;
+	private boolean wakeupScheduled;
+	private int running;
+	private int retrying;
+	private int completed;
+	private int failed;
+	private long nextSequence;
+
+	/**
+	 * Creates a new scheduler
+	 *
+	 * @param timer             the {@link TimingWheel} used for delaying synchronizations
+	 * @param maxConcurrent     the maximum number of guilds synchronized at the same time
+	 * @param requestsPerSecond the maximum number of synchronizations started per second
+	 */
+	SlashCommandSyncScheduler(TimingWheel timer, int maxConcurrent, int requestsPerSecond)
+	{
+		this.timer = timer;
+		this.nextStart = System.nanoTime();
+		setRate(maxConcurrent, requestsPerSecond);
+	}
+
+	/**
+	 * Changes how many guilds are synchronized
+	 *
+	 * @param maxConcurrent     the maximum number of guilds synchronized at the same time
+	 * @param requestsPerSecond the maximum number of synchronizations started per second
+	 */
+	synchronized void setRate(int maxConcurrent, int requestsPerSecond)
+	{
+		this.maxConcurrent = maxConcurrent;
+		this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+	}
+
+	/**
+	 * Sets the listener notified whenever the synchronization of a guild is finished
+	 *
+	 * @param progressListener the listener or <code>null</code>
+	 */
+	void setProgressListener(Consumer<SlashCommandSyncProgress> progressListener)
+	{
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Records that a guild is in use so that it is preferred when synchronizing
+	 *
+	 * @param guildId the ID of the guild
+	 */
+	void recordActivity(long guildId)
+	{
+		long now = System.currentTimeMillis();
+		Long last = lastActivity.get(guildId);
+		if (last == null || now - last > ACTIVITY_RESOLUTION_MILLIS)
+		{
+			lastActivity.put(guildId, now);
+		}
+	}
+
+	/**
+	 * Forgets the activity of a guild, e.g. because the bot left it
+	 *
+	 * @param guildId the ID of the guild
+	 */
+	void forgetActivity(long guildId)
+	{
+		lastActivity.remove(guildId);
+	}
+
+	/**
+	 * Schedules the synchronization of a guild
+	 *
+	 * @param guildId the ID of the guild
+	 * @param task    the synchronization, returning a {@link CompletionStage} that completes when it is finished
+	 */
+	void submit(long guildId, Supplier<? extends CompletionStage<?>> task)
+	{
+		synchronized (this)
+		{
+			Sync sync = waiting.get(guildId);
+			if (sync != null)
+			{
+				sync.task = task;
+				sync.full = true;
+				return;
+			}
+			enqueue(new Sync(guildId, task, true, lastActivity.getOrDefault(guildId, 0L), nextSequence++));
+		}
+		pump();
+	}
+
+	/**
+	 * Schedules a change of a single command in a guild
+	 *
+	 * @param guildId the ID of the guild
+	 * @param change  the change, returning a {@link CompletionStage} that completes when it is finished
+	 */
+	void submitChange(long guildId, Supplier<? extends CompletionStage<?>> change)
+	{
+		synchronized (this)
+		{
+			Sync sync = waiting.get(guildId);
+			if (sync != null)
+			{
+				if (!sync.full)
+				{
+					sync.task = chain(sync.task, change);
+				}
+				return;
+			}
+			enqueue(new Sync(guildId, change, false, lastActivity.getOrDefault(guildId, 0L), nextSequence++));
+		}
+		pump();
+	}
+
+	/**
+	 * Gets the current progress
+	 *
+	 * @return the progress of all synchronizations submitted so far
+	 */
+	synchronized SlashCommandSyncProgress getProgress()
+	{
+		return new SlashCommandSyncProgress(completed, failed, waiting.size() + running + retrying);
+	}
+
+	private static Supplier<CompletionStage<?>> chain(Supplier<? extends CompletionStage<?>> first, Supplier<? extends CompletionStage<?>> second)
+	{
+		return () -> first.get().thenCompose(ignored -> second.get().thenAccept(result -> { }));
+	}
+
+	/**
+	 * Adds a synchronization to the waiting ones.
+	 *
+	 * If the guild is being synchronized, it is only added to the queue once that has finished.
+	 */
+	private void enqueue(Sync sync)
+	{
+		waiting.put(sync.guildId, sync);
+		if (!busyGuilds.contains(sync.guildId))
+		{
+			queue.add(sync);
+		}
+	}
+
+	private void release(long guildId)
+	{
+		busyGuilds.remove(guildId);
+		Sync parked = waiting.get(guildId);
+		if (parked != null)
+		{
+			queue.add(parked);
+		}
+	}
+
+	private void pump()
+	{
+		while (true)
+		{
+			Sync sync;
+			synchronized (this)
+			{
+				if (running >= maxConcurrent || queue.isEmpty())
+				{
+					return;
+				}
+				long now = System.nanoTime();
+				if (now - nextStart < 0)
+				{
+					if (!wakeupScheduled)
+					{
+						wakeupScheduled = true;
+						timer.schedule(this::wakeup, nextStart - now, TimeUnit.NANOSECONDS);
+					}
+					return;
+				}
+				nextStart = Math.max(nextStart, now - intervalNanos) + intervalNanos;
+				sync = queue.poll();
+				waiting.remove(sync.guildId);
+				busyGuilds.add(sync.guildId);
+				running++;
+			}
+			start(sync);
+		}
+	}
+
+	private void wakeup()
+	{
+		synchronized (this)
+		{
+			wakeupScheduled = false;
+		}
+		pump();
+	}
+
+	private void start(Sync sync)
+	{
+		CompletionStage<?> result;
+		try
+		{
+			result = sync.task.get();
+		}
+		catch (RuntimeException e)
+		{
+			CompletableFuture<?> failedResult = new CompletableFuture<>();
+			failedResult.completeExceptionally(e);
+			result = failedResult;
+		}
+		result.whenComplete((ignored, e) -> finished(sync, e));
+	}
+
+	private void finished(Sync sync, Throwable e)
+	{
+		if (e instanceof CompletionException && e.getCause() != null)
+		{
+			e = e.getCause();
+		}
+		SlashCommandSyncProgress progress;
+		synchronized (this)
+		{
+			running--;
+			if (e == null)
+			{
+				completed++;
+				release(sync.guildId);
+			}
+			else if (isRetryable(e) && ++sync.attempts < MAX_ATTEMPTS)
+			{
+				long backoff = INITIAL_BACKOFF_MILLIS << (sync.attempts - 1);
+				LOG.debug("Cannot register slash commands in guild {}, retrying in {}ms.", sync.guildId, backoff, e);
+				retrying++;
+				timer.schedule(() -> retry(sync), backoff, TimeUnit.MILLISECONDS);
+			}
+			else
+			{
+				LOG.warn("Cannot register slash commands in guild {}.", sync.guildId, e);
+				failed++;
+				release(sync.guildId);
+			}
+			progress = getProgress();
+		}
+		reportProgress(progress);
+		pump();
+	}
+
+	private void retry(Sync sync)
+	{
+		synchronized (this)
+		{
+			retrying--;
+			busyGuilds.remove(sync.guildId);
+			Sync newer = waiting.get(sync.guildId);
+			if (newer == null)
+			{
+				enqueue(sync);
+			}
+			else
+			{
+				if (!newer.full)
+				{
+					// the failed synchronization has been submitted first, so it is run before the newer changes
+					newer.task = sync.full ? sync.task : chain(sync.task, newer.task);
+					newer.full = sync.full;
+				}
+				queue.add(newer);
+			}
+		}
+		pump();
+	}
+
+	private static boolean isRetryable(Throwable e)
+	{
+		return !(e instanceof ErrorResponseException) || ((ErrorResponseException) e).isServerError();
+	}
+
+	private void reportProgress(SlashCommandSyncProgress progress)
+	{
+		if (progress.isDone())
+		{
+			LOG.info("Registered slash commands in {} guilds, {} failed.", progress.getCompleted(), progress.getFailed());
+		}
+		Consumer<SlashCommandSyncProgress> listener = progressListener;
+		if (listener != null)
+		{
+			try
+			{
+				listener.accept(progress);
+			}
+			catch (RuntimeException e)
+			{
+				LOG.error("The slash command synchronization progress listener failed.", e);
+			}
+		}
+	}
+
+	/**
+	 * A synchronization of a guild waiting to be started
+	 */
+	private static final class Sync implements Comparable<Sync>
+	{
+		private final long guildId;
+		private final long lastActivity;
+		private final long sequence;
+		private Supplier<? extends CompletionStage<?>> task;
+		private boolean full;
+		private int attempts;
+
+		private Sync(long guildId, Supplier<? extends CompletionStage<?>> task, boolean full, long lastActivity, long sequence)
+		{
+			this.guildId = guildId;
+			this.task = task;
+			this.full = full;
+			this.lastActivity = lastActivity;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(Sync other)
+		{
+			int result = Long.compare(other.lastActivity, lastActivity);
+			return result == 0 ? Long.compare(sequence, other.sequence) : result;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+
+/**
+ * An immutable snapshot of the slash commands of all registered commands.
+ *
+ * The {@link CommandData} of a command and its canonical JSON representation are created once when the command is added.
+ * The same instances are shared by all guilds and shards and must not be modified.
+ */
+final class SlashCommands
+{
+	static final SlashCommands EMPTY = new SlashCommands(Collections.emptyMap());
+
+	private final Map<String, Entry> entries;
+	private final List<CommandData> commandData;
+	private volatile String fingerprint;
+
+	private SlashCommands(Map<String, Entry> entries)
+	{
+		this.entries = entries;
+		List<CommandData> data = new ArrayList<>(entries.size());
+		for (Entry entry : entries.values())
+		{
+			data.add(entry.data);
+		}
+		this.commandData = Collections.unmodifiableList(data);
+	}
+
+	/**
+	 * Creates a snapshot containing an additional or replaced command
+	 *
+	 * @param name the name of the command
+	 * @param cmd  the command
+	 * @return the new snapshot
+	 */
+	SlashCommands with(String name, RegisteredCommand cmd)
+	{
+		Map<String, Entry> newEntries = new HashMap<>(entries);
+		newEntries.put(name, new Entry(SlashCommandBuilder.buildSlashCommand(name, cmd.getCommand(), argument -> cmd.getAutoCompleteSource(argument) != null)));
+		return new SlashCommands(newEntries);
+	}
+
+	/**
+	 * Creates a snapshot without a command
+	 *
+	 * @param name the name of the command
+	 * @return the new snapshot
+	 */
+	SlashCommands without(String name)
+	{
+		if (!entries.containsKey(name))
+		{
+			return this;
+		}
+		Map<String, Entry> newEntries = new HashMap<>(entries);
+		newEntries.remove(name);
+		return new SlashCommands(newEntries);
+	}
+
+	/**
+	 * Gets the slash command with a specific name
+	 *
+	 * @param name the name of the command
+	 * @return the {@link CommandData} of the command or <code>null</code> if there is no command with that name
+	 */
+	CommandData get(String name)
+	{
+		Entry entry = entries.get(name);
+		return entry == null ? null : entry.data;
+	}
+
+	/**
+	 * Gets all slash commands
+	 *
+	 * @return an unmodifiable {@link Collection} of the {@link CommandData} of all commands
+	 */
+	Collection<CommandData> getCommandData()
+	{
+		return commandData;
+	}
+
+	/**
+	 * Gets the fingerprint of all slash commands
+	 *
+	 * @return the fingerprint
+	 * @see SlashCommandFingerprints#fingerprint(Collection)
+	 */
+	String getFingerprint()
+	{
+		String result = fingerprint;
+		if (result == null)
+		{
+			List<String> canonicalJson = new ArrayList<>(entries.size());
+			for (Entry entry : entries.values())
+			{
+				canonicalJson.add(entry.canonicalJson);
+			}
+			result = SlashCommandFingerprints.fingerprintCanonical(canonicalJson);
+			fingerprint = result;
+		}
+		return result;
+	}
+
+	/**
+	 * A built slash command
+	 */
+	private static final class Entry
+	{
+		private final CommandData data;
+		private final String canonicalJson;
+
+		private Entry(CommandData data)
+		{
+			this.data = data;
+			this.canonicalJson = SlashCommandFingerprints.canonicalJson(data);
+		}
+	}
+}
\ No newline at end of file
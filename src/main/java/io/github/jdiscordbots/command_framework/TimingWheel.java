@@ -0,0 +1,171 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hashed timing wheel for scheduling many short tasks with a coarse precision.
+ *
+ * Scheduling and cancelling tasks takes constant time.
+ * All tasks are executed on a single daemon thread that is started when the first task is scheduled,
+ * so tasks should finish quickly and must not block, e.g. on I/O.
+ */
+final class TimingWheel
+{
+	private static final Logger LOG=LoggerFactory.getLogger(TimingWheel.class);
+
+	private final String threadName;
+	private final long tickNanos;
+	private final List<Timeout>[] buckets;
+	private final int mask;
+	private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean started = new AtomicBoolean();
+	private final long startTime = System.nanoTime();
+
+	/**
+	 * Creates a new timing wheel
+	 *
+	 * @param threadName the name of the thread executing the tasks
+	 * @param tick       the duration of a tick
+	 * @param unit       the {@link TimeUnit} of <code>tick</code>
+	 * @param wheelSize  the number of buckets, rounded up to a power of two
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	TimingWheel(String threadName, long tick, TimeUnit unit, int wheelSize)
+	{
+		this.threadName = threadName;
+		this.tickNanos = unit.toNanos(tick);
+		int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+		this.buckets = new List[size];
+		for (int i = 0; i < size; i++)
+		{
+			buckets[i] = new ArrayList<>();
+		}
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Executes a task after a delay
+	 *
+	 * @param task  the task to execute
+	 * @param delay the delay after which the task should be executed
+	 * @param unit  the {@link TimeUnit} of <code>delay</code>
+	 * @return a {@link Timeout} that can be used to cancel the task
+	 */
+	Timeout schedule(Runnable task, long delay, TimeUnit unit)
+	{
+		start();
+		Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(delay));
+		pending.add(timeout);
+		return timeout;
+	}
+
+	private void start()
+	{
+		if (!started.get() && started.compareAndSet(false, true))
+		{
+			Thread worker = new Thread(this::run, threadName);
+			worker.setDaemon(true);
+			worker.start();
+		}
+	}
+
+	private void run()
+	{
+		long tick = (System.nanoTime() - startTime) / tickNanos;
+		while (!Thread.currentThread().isInterrupted())
+		{
+			long sleepNanos = startTime + (tick + 1) * tickNanos - System.nanoTime();
+			if (sleepNanos > 0)
+			{
+				try
+				{
+					TimeUnit.NANOSECONDS.sleep(sleepNanos);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			transferPending(tick);
+			expire(buckets[(int) (tick & mask)], System.nanoTime() - startTime);
+			tick++;
+		}
+	}
+
+	private void transferPending(long currentTick)
+	{
+		Timeout timeout;
+		while ((timeout = pending.poll()) != null)
+		{
+			if (!timeout.cancelled)
+			{
+				long targetTick = Math.max(timeout.deadline / tickNanos, currentTick);
+				timeout.remainingRounds = (targetTick - currentTick) / buckets.length;
+				buckets[(int) (targetTick & mask)].add(timeout);
+			}
+		}
+	}
+
+	private void expire(List<Timeout> bucket, long now)
+	{
+		for (Iterator<Timeout> it = bucket.iterator(); it.hasNext();)
+		{
+			Timeout timeout = it.next();
+			if (timeout.cancelled)
+			{
+				it.remove();
+			}
+			else if (timeout.remainingRounds <= 0 && timeout.deadline <= now)
+			{
+				it.remove();
+				try
+				{
+					timeout.task.run();
+				}
+				catch (RuntimeException e)
+				{
+					LOG.error("An exception occurred executing a scheduled task.", e);
+				}
+			}
+			else if (timeout.remainingRounds > 0)
+			{
+				timeout.remainingRounds--;
+			}
+		}
+	}
+
+	/**
+	 * A task scheduled in a {@link TimingWheel}
+	 */
+	static final class Timeout
+	{
+		private final Runnable task;
+		private final long deadline;
+		private long remainingRounds;
+		private volatile boolean cancelled;
+
+		private Timeout(Runnable task, long deadline)
+		{
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Prevents the task from being executed if it has not been executed yet
+		 */
+		void cancel()
+		{
+			cancelled = true;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.github.jdiscordbots.command_framework.command.Cooldown;
+
+/**
+ * Lock-free token buckets keyed by snowflake IDs.
+ *
+ * Every bucket is stored as the time at which it is completely refilled (generic cell rate algorithm).
+ * Buckets are kept in striped open addressing tables that are allocated on first use.
+ * Full buckets are considered expired and their slots are reused, so idle keys do not use additional memory.
+ * If all slots a key can use are taken by other keys, the bucket that is closest to being refilled is evicted,
+ * so a flood of distinct keys cannot turn off the limit.
+ */
+final class TokenBuckets
+{
+	private static final int STRIPES = 64;
+	private static final int SLOTS_PER_STRIPE = 512;
+	private static final int MAX_PROBES = 16;
+
+	private final long emissionInterval;
+	private final long tolerance;
+	private final AtomicReferenceArray<AtomicReferenceArray<Bucket>> stripes = new AtomicReferenceArray<>(STRIPES);
+
+	/**
+	 * Creates token buckets for a limit
+	 *
+	 * @param limit the number of uses allowed in a period
+	 */
+	TokenBuckets(Cooldown.Limit limit)
+	{
+		long periodNanos = limit.getPeriod().toNanos();
+		this.emissionInterval = Math.max(1, periodNanos / limit.getUses());
+		this.tolerance = periodNanos - emissionInterval;
+	}
+
+	/**
+	 * Takes a token from the bucket of a key if there is one
+	 *
+	 * @param key the key, e.g. a user ID
+	 * @param now the current time as returned by {@link System#nanoTime()}
+	 * @return <code>true</code> if a token was available, else <code>false</code>
+	 */
+	boolean tryAcquire(long key, long now)
+	{
+		long hash = mix(key);
+		AtomicReferenceArray<Bucket> slots = getStripe((int) (hash >>> 58));
+		int start = (int) hash & (SLOTS_PER_STRIPE - 1);
+		while (true)
+		{
+			int free = -1;
+			Bucket freeBucket = null;
+			int stalest = -1;
+			Bucket stalestBucket = null;
+			int found = -1;
+			Bucket bucket = null;
+			for (int probe = 0; probe < MAX_PROBES; probe++)
+			{
+				int i = (start + probe) & (SLOTS_PER_STRIPE - 1);
+				Bucket current = slots.get(i);
+				if (current != null && current.key == key)
+				{
+					found = i;
+					bucket = current;
+					break;
+				}
+				if (free == -1 && (current == null || current.refilledAt - now <= 0))
+				{
+					free = i;
+					freeBucket = current;
+				}
+				if (current == null)
+				{
+					break;
+				}
+				if (stalestBucket == null || current.refilledAt - stalestBucket.refilledAt < 0)
+				{
+					stalest = i;
+					stalestBucket = current;
+				}
+			}
+			if (found == -1)
+			{
+				if (free == -1)
+				{
+					free = stalest;
+					freeBucket = stalestBucket;
+				}
+				if (slots.compareAndSet(free, freeBucket, new Bucket(key, now + emissionInterval)))
+				{
+					return true;
+				}
+			}
+			else
+			{
+				long refilledAt = Math.max(bucket.refilledAt - now, 0) + now;
+				if (refilledAt - now > tolerance)
+				{
+					return false;
+				}
+				if (slots.compareAndSet(found, bucket, new Bucket(key, refilledAt + emissionInterval)))
+				{
+					return true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a token taken by {@link TokenBuckets#tryAcquire(long, long)}, e.g. because the use has been rejected by another limit
+	 *
+	 * @param key the key the token has been taken for
+	 * @param now the current time as returned by {@link System#nanoTime()}
+	 */
+	void release(long key, long now)
+	{
+		long hash = mix(key);
+		AtomicReferenceArray<Bucket> slots = getStripe((int) (hash >>> 58));
+		int start = (int) hash & (SLOTS_PER_STRIPE - 1);
+		for (int probe = 0; probe < MAX_PROBES; probe++)
+		{
+			int i = (start + probe) & (SLOTS_PER_STRIPE - 1);
+			Bucket current = slots.get(i);
+			if (current == null)
+			{
+				return;
+			}
+			if (current.key == key)
+			{
+				long refilledAt = Math.max(current.refilledAt - emissionInterval - now, 0) + now;
+				if (slots.compareAndSet(i, current, new Bucket(key, refilledAt)))
+				{
+					return;
+				}
+				probe--;
+			}
+		}
+	}
+
+	private AtomicReferenceArray<Bucket> getStripe(int index)
+	{
+		AtomicReferenceArray<Bucket> stripe = stripes.get(index);
+		if (stripe == null)
+		{
+			stripes.compareAndSet(index, null, new AtomicReferenceArray<>(SLOTS_PER_STRIPE));
+			stripe = stripes.get(index);
+		}
+		return stripe;
+	}
+
+	private static long mix(long key)
+	{
+		key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+		key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return key ^ (key >>> 33);
+	}
+
+	private static final class Bucket
+	{
+		private final long key;
+		private final long refilledAt;
+
+		private Bucket(long key, long refilledAt)
+		{
+			this.key = key;
+			this.refilledAt = refilledAt;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package io.github.jdiscordbots.command_framework;
+
+/**
+ * The reason why a component could not be dispatched to a command.
+ *
+ * @see CommandFramework#setUnknownButtonAction(java.util.function.BiConsumer)
+ * @see CommandFramework#setUnknownComponentAction(java.util.function.BiConsumer)
+ */
+public enum UnknownComponentReason
+{
+	/**
+	 * There is no command for the custom ID of the component, e.g. because it has been removed.
+	 */
+	UNKNOWN_COMMAND,
+	/**
+	 * The custom ID has been created by the framework but cannot be decoded.
+	 */
+	MALFORMED,
+	/**
+	 * The custom ID refers to a session in the {@link ComponentSessionStore} that has expired or has been evicted.
+	 */
+	SESSION_EXPIRED
+}
\ No newline at end of file
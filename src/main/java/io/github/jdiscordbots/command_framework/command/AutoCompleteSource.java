@@ -0,0 +1,29 @@
+package io.github.jdiscordbots.command_framework.command;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+
+/**
+ * Provides the values suggested while a user types an argument of a slash command.
+ *
+ * Values are used as both the name and the value of the suggested choices.
+ * For large fixed sets of values, {@link PrefixIndex} can be used.
+ * @see ICommand#getAutoCompleteSource(String)
+ */
+@FunctionalInterface
+public interface AutoCompleteSource
+{
+	/**
+	 * Finds the values suggested for the current input of an argument.
+	 * 
+	 * This method is called from the thread receiving the event and should not block.
+	 * Discord requires the suggestions within 3 seconds, if the returned {@link CompletionStage} does not complete in time, no values are suggested.
+	 * @param event the {@link CommandAutoCompleteInteractionEvent} of the argument
+	 * @param input the text the user has entered so far
+	 * @param limit the maximum number of values that can be suggested
+	 * @return a {@link CompletionStage} completing with the suggested values
+	 */
+	CompletionStage<? extends List<String>> complete(CommandAutoCompleteInteractionEvent event, String input, int limit);
+}
\ No newline at end of file
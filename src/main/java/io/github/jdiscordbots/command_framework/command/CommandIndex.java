@@ -0,0 +1,40 @@
+package io.github.jdiscordbots.command_framework.command;
+
+import java.util.function.Supplier;
+
+/**
+ * An index of the commands in a package, generated at compile time.
+ *
+ * The annotation processor {@link io.github.jdiscordbots.command_framework.processor.CommandIndexProcessor} creates an index
+ * for every package containing classes annotated with {@link Command} and registers it as a {@link java.util.ServiceLoader service}.
+ * If an index exists for the commands of a {@link io.github.jdiscordbots.command_framework.CommandFramework}, it is used instead of scanning the classpath.
+ */
+public interface CommandIndex
+{
+	/**
+	 * Gets the package of the indexed commands.
+	 * @return the name of the package
+	 */
+	String getPackageName();
+
+	/**
+	 * Passes all indexed commands to a {@link Registry}.
+	 * @param registry the {@link Registry} receiving the commands
+	 */
+	void registerCommands(Registry registry);
+
+	/**
+	 * Receives the commands of a {@link CommandIndex}.
+	 */
+	@FunctionalInterface
+	interface Registry
+	{
+		/**
+		 * Receives a command.
+		 * @param className the binary name of the class of the command
+		 * @param factory creates an instance of the command
+		 * @param aliases the {@link Command#value() aliases} of the command
+		 */
+		void register(String className, Supplier<? extends ICommand> factory, String... aliases);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,273 @@
+package io.github.jdiscordbots.command_framework.command;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Data stored in the custom ID of a component.
+ *
+ * A payload has a version chosen by the command and a sequence of values that are read in the order they have been written.
+ * Numbers are stored as variable length integers and strings as their length followed by their UTF-8 bytes.
+ * The bytes are encoded using URL safe Base64 without padding so that the payload only uses a few characters of the custom ID.
+ *
+ * Reading decodes the characters of the custom ID directly without copying them.
+ * A payload keeps track of the position of the next value and must not be read by multiple threads at the same time.
+ * @see io.github.jdiscordbots.command_framework.CommandFramework#createComponentId(String, ComponentPayload)
+ */
+public final class ComponentPayload
+{
+	/**
+	 * The highest supported version
+	 */
+	public static final int MAX_VERSION=35;
+
+	private static final int[] DECODE=new int[128];
+
+	static
+	{
+		Arrays.fill(DECODE, -1);
+		String alphabet="ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+		for(int i=0;i<alphabet.length();i++)
+		{
+			DECODE[alphabet.charAt(i)]=i;
+		}
+	}
+
+	private final int version;
+	private final String source;
+	private final int start;
+	private final int end;
+	private int pos;
+	private int bits;
+	private int bitCount;
+
+	private ComponentPayload(int version, String source, int start, int end)
+	{
+		this.version=version;
+		this.source=source;
+		this.start=start;
+		this.pos=start;
+		this.end=end;
+	}
+
+	/**
+	 * Creates a payload from encoded characters.
+	 * @param version the version of the payload
+	 * @param source the {@link String} containing the encoded payload
+	 * @param start the index of the first character of the payload
+	 * @param end the index after the last character of the payload
+	 * @return the payload
+	 * @throws IllegalArgumentException if the version is not supported or the characters are not URL safe Base64
+	 */
+	public static ComponentPayload decode(int version, String source, int start, int end)
+	{
+		checkVersion(version);
+		for(int i=start;i<end;i++)
+		{
+			char c=source.charAt(i);
+			if(c>=DECODE.length||DECODE[c]==-1)
+			{
+				throw new IllegalArgumentException("invalid payload character: "+c);
+			}
+		}
+		return new ComponentPayload(version, source, start, end);
+	}
+
+	/**
+	 * Creates a {@link Builder} for a new payload.
+	 * @param version the version of the payload, between 0 and {@link ComponentPayload#MAX_VERSION}
+	 * @return the {@link Builder}
+	 */
+	public static Builder builder(int version)
+	{
+		checkVersion(version);
+		return new Builder(version);
+	}
+
+	private static void checkVersion(int version)
+	{
+		if(version<0||version>MAX_VERSION)
+		{
+			throw new IllegalArgumentException("version must be between 0 and "+MAX_VERSION);
+		}
+	}
+
+	/**
+	 * Gets the version of the payload.
+	 * @return the version chosen when the payload was created
+	 */
+	public int getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Gets the encoded payload.
+	 * @return the URL safe Base64 characters of the payload
+	 */
+	public String getEncoded()
+	{
+		return source.substring(start, end);
+	}
+
+	/**
+	 * Checks whether there are values that have not been read yet.
+	 * @return <code>true</code> if there is at least one byte left, else <code>false</code>
+	 */
+	public boolean hasRemaining()
+	{
+		return bitCount+(end-pos)*6>=8;
+	}
+
+	/**
+	 * Reads a number.
+	 * @return the next value as a <code>long</code>
+	 * @throws IllegalStateException if there is no value left
+	 */
+	public long readLong()
+	{
+		long encoded=0;
+		for(int shift=0;shift<64;shift+=7)
+		{
+			int b=readByte();
+			encoded|=(long)(b&0x7F)<<shift;
+			if((b&0x80)==0)
+			{
+				return (encoded>>>1)^-(encoded&1);
+			}
+		}
+		throw new IllegalStateException("malformed number");
+	}
+
+	/**
+	 * Reads a number that has been written as an <code>int</code>.
+	 * @return the next value as an <code>int</code>
+	 * @throws IllegalStateException if there is no value left
+	 */
+	public int readInt()
+	{
+		return (int)readLong();
+	}
+
+	/**
+	 * Reads a boolean.
+	 * @return the next value as a <code>boolean</code>
+	 * @throws IllegalStateException if there is no value left
+	 */
+	public boolean readBoolean()
+	{
+		return readByte()!=0;
+	}
+
+	/**
+	 * Reads a {@link String}.
+	 * @return the next value as a {@link String}
+	 * @throws IllegalStateException if there is no value left
+	 */
+	public String readString()
+	{
+		int length=readInt();
+		if(length<0||(long)length*8>bitCount+(long)(end-pos)*6)
+		{
+			throw new IllegalStateException("malformed string");
+		}
+		byte[] bytes=new byte[length];
+		for(int i=0;i<length;i++)
+		{
+			bytes[i]=(byte)readByte();
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int readByte()
+	{
+		while(bitCount<8)
+		{
+			if(pos>=end)
+			{
+				throw new IllegalStateException("no value left in payload");
+			}
+			bits=(bits<<6)|DECODE[source.charAt(pos++)];
+			bitCount+=6;
+		}
+		bitCount-=8;
+		return (bits>>>bitCount)&0xFF;
+	}
+
+	/**
+	 * Creates {@link ComponentPayload}s.
+	 */
+	public static final class Builder
+	{
+		private final int version;
+		private final ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+
+		private Builder(int version)
+		{
+			this.version=version;
+		}
+
+		/**
+		 * Adds a number.
+		 * @param value the value
+		 * @return the instance (<code>this</code>) of the {@link Builder} that can be used for chaining.
+		 */
+		public Builder putLong(long value)
+		{
+			long encoded=(value<<1)^(value>>63);
+			while((encoded&~0x7FL)!=0)
+			{
+				bytes.write((int)((encoded&0x7F)|0x80));
+				encoded>>>=7;
+			}
+			bytes.write((int)encoded);
+			return this;
+		}
+
+		/**
+		 * Adds a number.
+		 * @param value the value
+		 * @return the instance (<code>this</code>) of the {@link Builder} that can be used for chaining.
+		 */
+		public Builder putInt(int value)
+		{
+			return putLong(value);
+		}
+
+		/**
+		 * Adds a boolean.
+		 * @param value the value
+		 * @return the instance (<code>this</code>) of the {@link Builder} that can be used for chaining.
+		 */
+		public Builder putBoolean(boolean value)
+		{
+			bytes.write(value?1:0);
+			return this;
+		}
+
+		/**
+		 * Adds a {@link String}.
+		 * @param value the value
+		 * @return the instance (<code>this</code>) of the {@link Builder} that can be used for chaining.
+		 */
+		public Builder putString(String value)
+		{
+			byte[] utf8=value.getBytes(StandardCharsets.UTF_8);
+			putInt(utf8.length);
+			bytes.write(utf8, 0, utf8.length);
+			return this;
+		}
+
+		/**
+		 * Creates the payload.
+		 * @return the {@link ComponentPayload} containing all added values
+		 */
+		public ComponentPayload build()
+		{
+			String encoded=Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+			return new ComponentPayload(version, encoded, 0, encoded.length());
+		}
+	}
+}
\ No newline at end of file
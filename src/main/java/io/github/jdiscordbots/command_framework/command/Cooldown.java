@@ -0,0 +1,169 @@
+package io.github.jdiscordbots.command_framework.command;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Limits how often a command can be used.
+ * 
+ * A cooldown consists of up to three limits: per user, per guild and global.
+ * Each limit allows a number of uses in a period and is refilled continuously (token bucket).
+ * A command can only be used if none of its limits is exceeded.
+ * 
+ * Instances of this class are immutable.
+ * @see ICommand#getCooldown()
+ */
+public final class Cooldown
+{
+	private final Limit user;
+	private final Limit guild;
+	private final Limit global;
+
+	private Cooldown(Limit user, Limit guild, Limit global)
+	{
+		this.user = user;
+		this.guild = guild;
+		this.global = global;
+	}
+
+	/**
+	 * Creates a {@link Cooldown} allowing every user to use the command <code>uses</code> times per <code>period</code>.
+	 * @param uses the number of uses allowed in the period
+	 * @param period the period in which the uses are refilled
+	 * @return the created {@link Cooldown}
+	 * @throws IllegalArgumentException if <code>uses</code> or <code>period</code> is not positive
+	 */
+	public static Cooldown perUser(int uses, Duration period)
+	{
+		return new Cooldown(new Limit(uses, period), null, null);
+	}
+
+	/**
+	 * Creates a {@link Cooldown} allowing every guild to use the command <code>uses</code> times per <code>period</code>.
+	 * @param uses the number of uses allowed in the period
+	 * @param period the period in which the uses are refilled
+	 * @return the created {@link Cooldown}
+	 * @throws IllegalArgumentException if <code>uses</code> or <code>period</code> is not positive
+	 */
+	public static Cooldown perGuild(int uses, Duration period)
+	{
+		return new Cooldown(null, new Limit(uses, period), null);
+	}
+
+	/**
+	 * Creates a {@link Cooldown} allowing the command to be used <code>uses</code> times per <code>period</code> in total.
+	 * @param uses the number of uses allowed in the period
+	 * @param period the period in which the uses are refilled
+	 * @return the created {@link Cooldown}
+	 * @throws IllegalArgumentException if <code>uses</code> or <code>period</code> is not positive
+	 */
+	public static Cooldown global(int uses, Duration period)
+	{
+		return new Cooldown(null, null, new Limit(uses, period));
+	}
+
+	/**
+	 * Creates a copy of this {@link Cooldown} with a different limit per user.
+	 * @param uses the number of uses allowed in the period
+	 * @param period the period in which the uses are refilled
+	 * @return the created {@link Cooldown}
+	 * @throws IllegalArgumentException if <code>uses</code> or <code>period</code> is not positive
+	 */
+	public Cooldown andPerUser(int uses, Duration period)
+	{
+		return new Cooldown(new Limit(uses, period), guild, global);
+	}
+
+	/**
+	 * Creates a copy of this {@link Cooldown} with a different limit per guild.
+	 * @param uses the number of uses allowed in the period
+	 * @param period the period in which the uses are refilled
+	 * @return the created {@link Cooldown}
+	 * @throws IllegalArgumentException if <code>uses</code> or <code>period</code> is not positive
+	 */
+	public Cooldown andPerGuild(int uses, Duration period)
+	{
+		return new Cooldown(user, new Limit(uses, period), global);
+	}
+
+	/**
+	 * Creates a copy of this {@link Cooldown} with a different global limit.
+	 * @param uses the number of uses allowed in the period
+	 * @param period the period in which the uses are refilled
+	 * @return the created {@link Cooldown}
+	 * @throws IllegalArgumentException if <code>uses</code> or <code>period</code> is not positive
+	 */
+	public Cooldown andGlobal(int uses, Duration period)
+	{
+		return new Cooldown(user, guild, new Limit(uses, period));
+	}
+
+	/**
+	 * Gets the limit per user.
+	 * @return the limit per user or <code>null</code> if there is no limit per user
+	 */
+	public Limit getUserLimit()
+	{
+		return user;
+	}
+
+	/**
+	 * Gets the limit per guild.
+	 * @return the limit per guild or <code>null</code> if there is no limit per guild
+	 */
+	public Limit getGuildLimit()
+	{
+		return guild;
+	}
+
+	/**
+	 * Gets the global limit.
+	 * @return the global limit or <code>null</code> if there is no global limit
+	 */
+	public Limit getGlobalLimit()
+	{
+		return global;
+	}
+
+	/**
+	 * A number of uses allowed in a period.
+	 */
+	public static final class Limit
+	{
+		private final int uses;
+		private final Duration period;
+
+		private Limit(int uses, Duration period)
+		{
+			Objects.requireNonNull(period);
+			if(uses<1)
+			{
+				throw new IllegalArgumentException("At least one use must be allowed");
+			}
+			if(period.isNegative()||period.isZero())
+			{
+				throw new IllegalArgumentException("The period must be positive");
+			}
+			this.uses = uses;
+			this.period = period;
+		}
+
+		/**
+		 * Gets the number of uses allowed in the period.
+		 * @return the number of uses
+		 */
+		public int getUses()
+		{
+			return uses;
+		}
+
+		/**
+		 * Gets the period in which all uses are refilled.
+		 * @return the period
+		 */
+		public Duration getPeriod()
+		{
+			return period;
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package io.github.jdiscordbots.command_framework.command;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import org.jetbrains.annotations.Contract;
 
@@ -10,7 +13,9 @@ import io.github.jdiscordbots.command_framework.CommandFramework;
 import io.github.jdiscordbots.command_framework.command.slash.SlashCommandFrameworkEvent;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.SelectMenuInteractionEvent;
 
 /**
  * Commands should implement this interface.
@@ -25,11 +30,28 @@ public interface ICommand
 {
 	/**
 	 * Executes the command.
+	 * 
+	 * Commands that finish asynchronously can override {@link ICommand#actionAsync(CommandEvent)} instead, this method is not called in that case.
 	 * @param event A {@link CommandEvent} representing from the invoked command and allowing to respond to the command
 	 */
-	
 	void action(CommandEvent event);
 	
+	/**
+	 * Executes the command asynchronously.
+	 * 
+	 * The command is considered finished when the returned {@link CompletionStage} completes.
+	 * If it completes exceptionally, the error is reported in the same way as exceptions thrown by {@link ICommand#action(CommandEvent)}.
+	 * The default implementation calls {@link ICommand#action(CommandEvent)} and returns a completed {@link CompletionStage}.
+	 * Returning <code>null</code> is treated like returning a completed {@link CompletionStage}.
+	 * @param event A {@link CommandEvent} representing from the invoked command and allowing to respond to the command
+	 * @return a {@link CompletionStage} that completes when the command is finished
+	 */
+	default CompletionStage<?> actionAsync(CommandEvent event)
+	{
+		action(event);
+		return CompletableFuture.completedFuture(null);
+	}
+	
 	/**
 	 * This method is executed on every button click where the button id equals the name of the command.
 	 * @param event A {@link ButtonInteractionEvent} representing the clicked button.
@@ -39,6 +61,105 @@ public interface ICommand
 		event.deferEdit().queue();
 	}
 
+	/**
+	 * This method is executed on every button click where the button id has been created for this command using {@link CommandFramework#createComponentId(String, ComponentPayload)}
+	 * or {@link CommandFramework#createSessionComponentId(String, ComponentPayload, Duration)}.
+	 * @param event A {@link ButtonInteractionEvent} representing the clicked button.
+	 * @param payload the {@link ComponentPayload} stored in the button id or the state of the session
+	 */
+	default void onButtonClick(ButtonInteractionEvent event, ComponentPayload payload)
+	{
+		onButtonClick(event);
+	}
+
+	/**
+	 * This method is executed on every selection in a select menu where the menu id equals the name of the command.
+	 * @param event A {@link SelectMenuInteractionEvent} representing the selection.
+	 */
+	default void onSelectMenu(SelectMenuInteractionEvent event)
+	{
+		event.deferEdit().queue();
+	}
+
+	/**
+	 * This method is executed on every selection in a select menu where the menu id has been created for this command using {@link CommandFramework#createComponentId(String, ComponentPayload)}
+	 * or {@link CommandFramework#createSessionComponentId(String, ComponentPayload, Duration)}.
+	 * @param event A {@link SelectMenuInteractionEvent} representing the selection.
+	 * @param payload the {@link ComponentPayload} stored in the menu id or the state of the session
+	 */
+	default void onSelectMenu(SelectMenuInteractionEvent event, ComponentPayload payload)
+	{
+		onSelectMenu(event);
+	}
+
+	/**
+	 * This method is executed on every submitted modal where the modal id equals the name of the command.
+	 * @param event A {@link ModalInteractionEvent} representing the submitted modal.
+	 */
+	default void onModalSubmit(ModalInteractionEvent event)
+	{
+		if(event.getMessage()==null)
+		{
+			event.deferReply(true).queue();
+		}
+		else
+		{
+			event.deferEdit().queue();
+		}
+	}
+
+	/**
+	 * This method is executed on every submitted modal where the modal id has been created for this command using {@link CommandFramework#createComponentId(String, ComponentPayload)}
+	 * or {@link CommandFramework#createSessionComponentId(String, ComponentPayload, Duration)}.
+	 * @param event A {@link ModalInteractionEvent} representing the submitted modal.
+	 * @param payload the {@link ComponentPayload} stored in the modal id or the state of the session
+	 */
+	default void onModalSubmit(ModalInteractionEvent event, ComponentPayload payload)
+	{
+		onModalSubmit(event);
+	}
+
+	/**
+	 * Gets the maximum time this command may take.
+	 * 
+	 * If the command does not finish in time, it is cancelled and the {@link CommandFramework#setTimeoutMessage(String) timeout message} is sent.
+	 * If the command is executed by an {@link CommandFramework#setExecutor(java.util.concurrent.Executor) executor}, the thread executing {@link ICommand#action(CommandEvent)} is interrupted.
+	 * @return the timeout or <code>null</code> (default) if the {@link CommandFramework#setCommandTimeout(Duration) default timeout} should be used
+	 */
+	@Contract(pure = true)
+	default Duration getTimeout()
+	{
+		return null;
+	}
+
+	/**
+	 * Gets the source of the values suggested while a user types an argument of this command as a slash command.
+	 * 
+	 * This is called once per argument when the command is registered and the result should not change.
+	 * Arguments with a source are registered with autocompletion instead of fixed choices.
+	 * Arguments with more choices than Discord allows use a {@link PrefixIndex} of their choices if no source is provided.
+	 * @param argumentName the name of the argument as specified in {@link ICommand#getExpectedArguments()}
+	 * @return the {@link AutoCompleteSource} or <code>null</code> (default) if the argument does not use autocompletion
+	 */
+	@Contract(pure = true)
+	default AutoCompleteSource getAutoCompleteSource(String argumentName)
+	{
+		return null;
+	}
+
+	/**
+	 * Gets the limits of how often this command can be used.
+	 * 
+	 * The cooldown is checked before {@link ICommand#allowExecute(CommandEvent)}.
+	 * It is read once when the command is registered and should not change.
+	 * @return the {@link Cooldown} or <code>null</code> (default) if the command can be used without limits
+	 */
+	@Contract(pure = true)
+	default Cooldown getCooldown()
+	{
+		return null;
+	}
+
 	/**
 	 * Return whether command can be executed or not
 	 *
@@ -0,0 +1,126 @@
+package io.github.jdiscordbots.command_framework.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+
+/**
+ * An immutable {@link AutoCompleteSource} suggesting the values that start with the input, ignoring case.
+ *
+ * The values are sorted once when the index is created so that a lookup only needs a binary search
+ * and a scan over the matching values.
+ * An index should be created once per argument and can be shared by all commands using the same values.
+ */
+public final class PrefixIndex implements AutoCompleteSource
+{
+	private final String[] keys;
+	private final String[] values;
+
+	/**
+	 * Creates an index of values.
+	 * @param values the values that can be suggested, duplicates are ignored
+	 */
+	public PrefixIndex(Collection<String> values)
+	{
+		Entry[] entries = new Entry[values.size()];
+		int i = 0;
+		for (String value : values)
+		{
+			entries[i++] = new Entry(value.toLowerCase(Locale.ROOT), value);
+		}
+		Arrays.sort(entries);
+		String[] sortedKeys = new String[entries.length];
+		String[] sortedValues = new String[entries.length];
+		int size = 0;
+		for (Entry entry : entries)
+		{
+			if (size == 0 || !entry.value.equals(sortedValues[size - 1]))
+			{
+				sortedKeys[size] = entry.key;
+				sortedValues[size] = entry.value;
+				size++;
+			}
+		}
+		this.keys = Arrays.copyOf(sortedKeys, size);
+		this.values = Arrays.copyOf(sortedValues, size);
+	}
+
+	/**
+	 * Finds the values starting with a prefix, ignoring case.
+	 * @param prefix the prefix
+	 * @param limit the maximum number of values to return
+	 * @return the matching values in alphabetical order
+	 */
+	public List<String> find(String prefix, int limit)
+	{
+		String key = prefix.toLowerCase(Locale.ROOT);
+		int low = 0;
+		int high = keys.length;
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (keys[mid].compareTo(key) >= 0)
+			{
+				high = mid;
+			}
+			else
+			{
+				low = mid + 1;
+			}
+		}
+		List<String> result = null;
+		for (int i = low; i < keys.length && keys[i].startsWith(key) && (result == null || result.size() < limit); i++)
+		{
+			if (result == null)
+			{
+				result = new ArrayList<>(Math.min(limit, 16));
+			}
+			result.add(values[i]);
+		}
+		return result == null ? Collections.emptyList() : result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CompletionStage<List<String>> complete(CommandAutoCompleteInteractionEvent event, String input, int limit)
+	{
+		return CompletableFuture.completedFuture(find(input, limit));
+	}
+
+	/**
+	 * Gets the number of values in the index.
+	 * @return the number of distinct values
+	 */
+	public int size()
+	{
+		return keys.length;
+	}
+
+	private static final class Entry implements Comparable<Entry>
+	{
+		private final String key;
+		private final String value;
+
+		private Entry(String key, String value)
+		{
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public int compareTo(Entry other)
+		{
+			int result = key.compareTo(other.key);
+			return result != 0 ? result : value.compareTo(other.value);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package io.github.jdiscordbots.command_framework.command.slash;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.jdiscordbots.command_framework.command.Argument;
+import io.github.jdiscordbots.command_framework.command.ArgumentTemplate;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+/**
+ * Extracts the {@link Argument}s of a slash command from an interaction.
+ *
+ * The expected arguments of a command are compiled once into the names of the options to look up.
+ * Subcommand groups and subcommands are not options and are passed as the first arguments if they are used.
+ * Their {@link SubcommandArgument}s are created once per known subcommand.
+ * Instances are immutable and can be shared by all invocations of a command.
+ */
+public final class SlashArgumentBinder
+{
+	private final String[] optionNames;
+	private final Map<String, SubcommandArgument> groups=new HashMap<>();
+	private final Map<String, SubcommandArgument> subcommands=new HashMap<>();
+
+	/**
+	 * Compiles the expected arguments of a command.
+	 * @param expectedArgs the {@link ArgumentTemplate}s of the command
+	 * @see io.github.jdiscordbots.command_framework.command.ICommand#getExpectedArguments()
+	 */
+	public SlashArgumentBinder(Collection<ArgumentTemplate> expectedArgs)
+	{
+		List<String> names=new ArrayList<>(expectedArgs.size());
+		for(ArgumentTemplate arg : expectedArgs)
+		{
+			switch(arg.getType())
+			{
+			case SUB_COMMAND:
+				subcommands.put(arg.getName(), new SubcommandArgument(OptionType.SUB_COMMAND, arg.getName()));
+				break;
+			case SUB_COMMAND_GROUP:
+				groups.put(arg.getName(), new SubcommandArgument(OptionType.SUB_COMMAND_GROUP, arg.getName()));
+				break;
+			default:
+				names.add(arg.getName());
+			}
+		}
+		this.optionNames=names.toArray(new String[0]);
+	}
+
+	/**
+	 * Extracts the arguments of an invoked slash command.
+	 * @param event the {@link SlashCommandInteractionEvent} of the invoked command
+	 * @return an unmodifiable {@link List} of the arguments
+	 */
+	public List<Argument> bind(SlashCommandInteractionEvent event)
+	{
+		String group=event.getSubcommandGroup();
+		String subcommand=event.getSubcommandName();
+		List<Argument> args=new ArrayList<>(2+optionNames.length);
+		if(group!=null)
+		{
+			args.add(getSubcommandArgument(groups, OptionType.SUB_COMMAND_GROUP, group));
+		}
+		if(subcommand!=null)
+		{
+			args.add(getSubcommandArgument(subcommands, OptionType.SUB_COMMAND, subcommand));
+		}
+		for(String name : optionNames)
+		{
+			OptionMapping option=event.getOption(name);
+			if(option!=null)
+			{
+				args.add(new SlashArgument(option));
+			}
+		}
+		return args.isEmpty()?Collections.emptyList():Collections.unmodifiableList(args);
+	}
+
+	private static SubcommandArgument getSubcommandArgument(Map<String, SubcommandArgument> known, OptionType type, String name)
+	{
+		SubcommandArgument arg=known.get(name);
+		return arg==null?new SubcommandArgument(type, name):arg;
+	}
+}
\ No newline at end of file
@@ -2,15 +2,10 @@ package io.github.jdiscordbots.command_framework.command.slash;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import gnu.trove.map.hash.TLongObjectHashMap;
 import io.github.jdiscordbots.command_framework.CommandFramework;
 import io.github.jdiscordbots.command_framework.command.Argument;
 import io.github.jdiscordbots.command_framework.command.ArgumentTemplate;
@@ -26,9 +21,7 @@ import net.dv8tion.jda.api.entities.PrivateChannel;
 import net.dv8tion.jda.api.entities.SelfUser;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 import net.dv8tion.jda.api.requests.RestAction;
-import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.api.utils.messages.MessageCreateData;
 import net.dv8tion.jda.internal.entities.SystemMessage;
 
@@ -37,10 +30,16 @@ import net.dv8tion.jda.internal.entities.SystemMessage;
  */
 public final class SlashCommandFrameworkEvent implements CommandEvent
 {
+	private static final int PENDING=0;
+	private static final int REPLIED=1;
+	private static final int DEFERRED=2;
+
 	private final CommandFramework framework;
 	private final SlashCommandInteractionEvent event;
 	private final List<Argument> args;
-	private AtomicReference<Message> firstMessage=new AtomicReference<>();
+	private final AtomicReference<Message> firstMessage=new AtomicReference<>();
+	private final AtomicReference<Message> placeholder=new AtomicReference<>();
+	private final AtomicInteger replyState=new AtomicInteger(PENDING);
 
 	public SlashCommandFrameworkEvent(CommandFramework framework, SlashCommandInteractionEvent event)
 	{
@@ -51,41 +50,20 @@ public final class SlashCommandFrameworkEvent implements CommandEvent
 
 	public SlashCommandFrameworkEvent(CommandFramework framework, SlashCommandInteractionEvent event, Collection<ArgumentTemplate> expectedArgs)
 	{
-		this.framework=framework;
-		this.event = event;
-		args = Collections.unmodifiableList(loadArgs(expectedArgs));
-	}
-
-	private List<Argument> loadArgs(Collection<ArgumentTemplate> expectedArgs)
-	{
-		return Stream.concat(createSubcommandDataStream(), createActualArgumentsStream(expectedArgs))
-				.collect(Collectors.toList());
+		this(framework, event, new SlashArgumentBinder(expectedArgs));
 	}
 
-	private Stream<Argument> createSubcommandDataStream()
-	{
-		return Stream.of(event.getSubcommandGroup(), event.getSubcommandName())
-				.filter(Objects::nonNull)
-				.map(in->createOptionDataFromString(in, getGuild()));
-	}
-
-	private Stream<Argument> createActualArgumentsStream(Collection<ArgumentTemplate> expectedArgs)
-	{
-		return expectedArgs.stream().map(ArgumentTemplate::getName).map(event::getOption).filter(Objects::nonNull)
-				.map(SlashArgument::new);
-	}
-
-	private static Argument createOptionDataFromString(String in, Guild g)
-	{
-		return new SlashArgument(new OptionMapping(new DataObject(creationOptionDataMap(in)) {}, new TLongObjectHashMap<>(),g.getJDA(), g));
-	}
-
-	private static Map<String, Object> creationOptionDataMap(String in)
+	/**
+	 * Creates an event for an invoked slash command.
+	 * @param framework the {@link CommandFramework} the command belongs to
+	 * @param event the {@link SlashCommandInteractionEvent} of the invoked command
+	 * @param binder the {@link SlashArgumentBinder} of the command used for extracting the arguments
+	 */
+	public SlashCommandFrameworkEvent(CommandFramework framework, SlashCommandInteractionEvent event, SlashArgumentBinder binder)
 	{
-		Map<String, Object> ret=new HashMap<>();
-		ret.put("value", in);
-		ret.put("name", "subcommand");
-		return ret;
+		this.framework=framework;
+		this.event = event;
+		args = binder.bind(event);
 	}
 
 	/**
@@ -195,12 +173,31 @@ public final class SlashCommandFrameworkEvent implements CommandEvent
 	{
 		Message msg = firstMessage.get();
 		if (msg == null)
+		{
+			firstMessage.compareAndSet(null, getPlaceholder());
+			msg = firstMessage.get();
+		}
+		return msg;
+	}
+
+	/**
+	 * Gets the {@link Message} representing the slash command until a reply has been sent.
+	 * 
+	 * It is created when it is needed for the first time.
+	 * @return the placeholder message
+	 */
+	private Message getPlaceholder()
+	{
+		Message msg = placeholder.get();
+		if (msg == null)
 		{//getArgs().stream().map(Argument::getAsString).collect(Collectors.joining(" "))
-			return new SystemMessage(getIdLong(), getChannel(), MessageType.SLASH_COMMAND, null,
+			msg = new SystemMessage(getIdLong(), getChannel(), MessageType.SLASH_COMMAND, null,
 					true, false, false,
 					event.getCommandString(), null, getAuthor(), getMember(), null, null,
 					null,Collections.emptyList(), Collections.emptyList(),
 					Collections.emptyList(), Collections.emptyList(), 0, event.getChannel().getType().isThread() ? event.getChannel().asThreadChannel() : null);
+			placeholder.compareAndSet(null, msg);
+			msg = placeholder.get();
 		}
 		return msg;
 	}
@@ -216,34 +213,95 @@ public final class SlashCommandFrameworkEvent implements CommandEvent
 
 	/**
 	 * {@inheritDoc}
+	 *
+	 * If the interaction has not been acknowledged yet, it is answered directly with a single request.
+	 * In that case, the returned {@link RestAction} does not retrieve the sent message and provides the same placeholder as {@link SlashCommandFrameworkEvent#getMessage()}.
+	 * Use {@link SlashCommandFrameworkEvent#retrieveOriginalMessage()} if the actual message is needed.
 	 */
 	@Override
 	public RestAction<Message> reply(String message)
 	{
+		if(replyState.compareAndSet(PENDING, REPLIED))
+		{
+			return event.reply(message).map(hook->getMessage());
+		}
 		return event.getHook().sendMessage(message).map(this::saveMessageIfFirst);
 	}
 
 	/**
 	 * {@inheritDoc}
+	 *
+	 * If the interaction has not been acknowledged yet, it is answered directly with a single request.
+	 * In that case, the returned {@link RestAction} does not retrieve the sent message and provides the same placeholder as {@link SlashCommandFrameworkEvent#getMessage()}.
+	 * Use {@link SlashCommandFrameworkEvent#retrieveOriginalMessage()} if the actual message is needed.
 	 */
 	@Override
 	public RestAction<Message> reply(MessageCreateData message)
 	{
+		if(replyState.compareAndSet(PENDING, REPLIED))
+		{
+			return event.reply(message).map(hook->getMessage());
+		}
 		return event.getHook().sendMessage(message).map(this::saveMessageIfFirst);
 	}
 
 	/**
 	 * {@inheritDoc}
+	 *
+	 * If the interaction has not been acknowledged yet, it is answered directly with a single request.
+	 * In that case, the returned {@link RestAction} does not retrieve the sent message and provides the same placeholder as {@link SlashCommandFrameworkEvent#getMessage()}.
+	 * Use {@link SlashCommandFrameworkEvent#retrieveOriginalMessage()} if the actual message is needed.
 	 */
 	@Override
 	public RestAction<Message> reply(MessageEmbed message)
 	{
+		if(replyState.compareAndSet(PENDING, REPLIED))
+		{
+			return event.replyEmbeds(message).map(hook->getMessage());
+		}
 		return event.getHook().sendMessageEmbeds(message).map(this::saveMessageIfFirst);
 	}
 
+	/**
+	 * Retrieves the original response of the interaction.
+	 * 
+	 * This requires a request and should only be used if the response has been sent directly and the actual {@link Message} is needed (e.g. for editing it).
+	 * Once it has been retrieved, it is provided by {@link SlashCommandFrameworkEvent#getMessage()} instead of the placeholder.
+	 * @return a {@link RestAction} providing the original response
+	 */
+	public RestAction<Message> retrieveOriginalMessage()
+	{
+		return event.getHook().retrieveOriginal().map(this::saveMessageIfFirst);
+	}
+
+	/**
+	 * Defers the reply to the interaction if it has not been acknowledged yet.
+	 *
+	 * Later replies are sent as follow-up messages.
+	 * @return <code>true</code> if the reply has been deferred, <code>false</code> if the interaction has already been acknowledged
+	 */
+	public boolean deferReplyIfPending()
+	{
+		if(replyState.compareAndSet(PENDING, DEFERRED))
+		{
+			event.deferReply().queue();
+			return true;
+		}
+		return false;
+	}
+
 	private Message saveMessageIfFirst(Message msg)
 	{
-		firstMessage.compareAndSet(null, msg);
+		Message current;
+		do
+		{
+			current = firstMessage.get();
+			if (current != null && current != placeholder.get())
+			{
+				return msg;
+			}
+		}
+		while (!firstMessage.compareAndSet(current, msg));
 		return msg;
 	}
 
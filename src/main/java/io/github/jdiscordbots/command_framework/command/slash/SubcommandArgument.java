@@ -0,0 +1,133 @@
+package io.github.jdiscordbots.command_framework.command.slash;
+
+import io.github.jdiscordbots.command_framework.command.Argument;
+import net.dv8tion.jda.api.entities.ChannelType;
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+/**
+ * An {@link Argument} representing the name of an invoked subcommand or subcommand group of a slash command.
+ *
+ * The arguments of the subcommands of a command are created once and shared by all invocations.
+ * Only {@link SubcommandArgument#getAsString()} and {@link SubcommandArgument#getType()} are supported, all conversions throw an {@link IllegalStateException}.
+ */
+public final class SubcommandArgument implements Argument
+{
+	private final OptionType type;
+	private final String name;
+
+	SubcommandArgument(OptionType type, String name)
+	{
+		this.type=type;
+		this.name=name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws IllegalStateException always because the name of a subcommand is not a {@code boolean}
+	 */
+	@Override
+	public boolean getAsBoolean()
+	{
+		throw notConvertible("boolean");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * This is either {@link OptionType#SUB_COMMAND} or {@link OptionType#SUB_COMMAND_GROUP}.
+	 */
+	@Override
+	public OptionType getType()
+	{
+		return type;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws IllegalStateException always because the name of a subcommand is not a {@code long}
+	 */
+	@Override
+	public long getAsLong()
+	{
+		throw notConvertible("long");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Member getAsMember()
+	{
+		throw notConvertible("Member");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public User getAsUser()
+	{
+		throw notConvertible("User");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public GuildChannel getAsGuildChannel()
+	{
+		throw notConvertible("GuildChannel");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MessageChannel getAsMessageChannel()
+	{
+		throw notConvertible("MessageChannel");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ChannelType getChannelType()
+	{
+		throw notConvertible("channel");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getAsString()
+	{
+		return name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Role getAsRole()
+	{
+		throw notConvertible("Role");
+	}
+
+	private IllegalStateException notConvertible(String target)
+	{
+		return new IllegalStateException("Cannot convert the " + type + " " + name + " to a " + target);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "SubcommandArgument[" + type + "=" + name + "]";
+	}
+}
\ No newline at end of file
@@ -26,14 +26,24 @@ public final class MessageArgument implements Argument
 	private static final Pattern CHANNEL_FORMAT=Pattern.compile("\\<#(\\d+)\\>");
 
 	private final Message msg;
-	private final String text;
+	private final String content;
+	private final int start;
+	private final int end;
+	private String text;
 
 	public MessageArgument(Message msg, String text)
 	{
-		this.msg=msg;
+		this(msg, text, 0, text.length());
 		this.text=text;
 	}
 
+	MessageArgument(Message msg, String content, int start, int end)
+	{
+		this.msg=msg;
+		this.content=content;
+		this.start=start;
+		this.end=end;
+	}
 
 	/**
 	 * {@inheritDoc}
@@ -41,7 +51,31 @@ public final class MessageArgument implements Argument
 	@Override
 	public String getAsString()
 	{
-		return text;
+		String str=text;
+		if(str==null)
+		{
+			//racy single-check like String#hashCode, all threads compute the same value
+			int quote=content.indexOf("\\\"", start);
+			str=quote!=-1&&quote+1<end?unescape(content, start, end):content.substring(start, end);
+			text=str;
+		}
+		return str;
+	}
+
+	private static String unescape(String content, int start, int end)
+	{
+		StringBuilder sb=new StringBuilder(end-start);
+		for(int i=start;i<end;i++)
+		{
+			char c=content.charAt(i);
+			if(c=='\\'&&i+1<end&&content.charAt(i+1)=='"')
+			{
+				c='"';
+				i++;
+			}
+			sb.append(c);
+		}
+		return sb.toString();
 	}
 
 	/**
@@ -60,7 +94,7 @@ public final class MessageArgument implements Argument
 	@Override
 	public boolean getAsBoolean()
 	{
-		return Boolean.parseBoolean(text);
+		return Boolean.parseBoolean(getAsString());
 	}
 
 	/**
@@ -78,7 +112,7 @@ public final class MessageArgument implements Argument
 	@Override
 	public long getAsLong()
 	{
-		return Long.parseLong(text);
+		return Long.parseLong(getAsString());
 	}
 
 	/**
@@ -154,12 +188,13 @@ public final class MessageArgument implements Argument
 
 	private <T> T getAsMentionedEntity(Pattern pattern,Function<String,T> converter)
 	{
-		Matcher matcher = pattern.matcher(text);
+		String str=getAsString();
+		Matcher matcher = pattern.matcher(str);
 		if(matcher.matches())
 		{
 			return converter.apply(matcher.group(1));
 		}
-		return converter.apply(text);
+		return converter.apply(str);
 	}
 
 	/**
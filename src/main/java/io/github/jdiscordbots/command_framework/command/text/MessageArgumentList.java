@@ -0,0 +1,70 @@
+package io.github.jdiscordbots.command_framework.command.text;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import io.github.jdiscordbots.command_framework.command.Argument;
+import net.dv8tion.jda.api.entities.Message;
+
+/**
+ * An unmodifiable {@link java.util.List List} of the {@link Argument}s of a text command.
+ *
+ * The arguments are views on the content of the message and are only created when they are accessed.
+ */
+public final class MessageArgumentList extends AbstractList<Argument> implements RandomAccess
+{
+	private final Message msg;
+	private final String content;
+	private final int[] starts;
+	private final int[] ends;
+	private final MessageArgument[] args;
+
+	/**
+	 * Creates a list of arguments of a message.
+	 *
+	 * The argument at index <code>i</code> is the text in <code>content</code> from <code>starts[i]</code> (inclusive) to <code>ends[i]</code> (exclusive)
+	 * where <code>\"</code> stands for a literal <code>"</code>.
+	 * The arrays must not be modified afterwards.
+	 * @param msg the {@link Message} the arguments belong to
+	 * @param content the content of the message
+	 * @param starts the start indices of the arguments
+	 * @param ends the end indices of the arguments
+	 * @param size the number of arguments
+	 */
+	public MessageArgumentList(Message msg, String content, int[] starts, int[] ends, int size)
+	{
+		if(size<0||size>starts.length||size>ends.length)
+		{
+			throw new IllegalArgumentException("invalid number of arguments: "+size);
+		}
+		this.msg=msg;
+		this.content=content;
+		this.starts=starts;
+		this.ends=ends;
+		this.args=new MessageArgument[size];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Argument get(int index)
+	{
+		MessageArgument arg=args[index];
+		if(arg==null)
+		{
+			arg=new MessageArgument(msg, content, starts[index], ends[index]);
+			args[index]=arg;
+		}
+		return arg;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size()
+	{
+		return args.length;
+	}
+}
\ No newline at end of file
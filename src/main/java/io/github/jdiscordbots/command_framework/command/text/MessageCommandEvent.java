@@ -25,7 +25,18 @@ public final class MessageCommandEvent implements CommandEvent
 	public MessageCommandEvent(CommandFramework framework,MessageReceivedEvent event, List<Argument> args)
 	{
 		this.event = event;
-		this.args = Collections.unmodifiableList(new ArrayList<>(args));
+		if(args.isEmpty())
+		{
+			this.args=Collections.emptyList();
+		}
+		else if(args instanceof MessageArgumentList)
+		{
+			this.args=args;
+		}
+		else
+		{
+			this.args=Collections.unmodifiableList(new ArrayList<>(args));
+		}
 		this.framework=framework;
 	}
 
@@ -0,0 +1,334 @@
+package io.github.jdiscordbots.command_framework.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a {@link io.github.jdiscordbots.command_framework.command.CommandIndex CommandIndex} for every package containing classes annotated with
+ * {@link io.github.jdiscordbots.command_framework.command.Command Command}.
+ *
+ * The index is named <code>GeneratedCommandIndex</code> and creates the commands using their constructors without reflection.
+ * All indices are registered in <code>META-INF/services</code> so that the {@link io.github.jdiscordbots.command_framework.CommandFramework CommandFramework}
+ * does not need to scan the classpath on startup.
+ * If only some classes are compiled again, the commands indexed by the previous compilation are kept if they still exist and are annotated,
+ * indices and service entries of commands that have been deleted are removed the next time the processor runs.
+ * Annotated classes that do not implement {@link io.github.jdiscordbots.command_framework.command.ICommand ICommand} are reported as errors,
+ * classes that cannot be instantiated are reported as warnings and skipped.
+ */
+@SupportedAnnotationTypes(CommandIndexProcessor.COMMAND_ANNOTATION)
+public final class CommandIndexProcessor extends AbstractProcessor
+{
+	static final String COMMAND_ANNOTATION = "io.github.jdiscordbots.command_framework.command.Command";
+
+	private static final String COMMAND_INTERFACE = "io.github.jdiscordbots.command_framework.command.ICommand";
+	private static final String INDEX_INTERFACE = "io.github.jdiscordbots.command_framework.command.CommandIndex";
+	private static final String INDEX_NAME = "GeneratedCommandIndex";
+	private static final String SERVICE_FILE = "META-INF/services/" + INDEX_INTERFACE;
+
+	private static final String COMMANDS_FIELD = "COMMANDS";
+
+	private final Set<String> indices = new TreeSet<>();
+	private Set<String> previousIndices;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		if (roundEnv.processingOver())
+		{
+			writeServiceFile();
+			return true;
+		}
+		TypeElement annotation = processingEnv.getElementUtils().getTypeElement(COMMAND_ANNOTATION);
+		if (annotation == null)
+		{
+			return false;
+		}
+		Map<String, Map<String, TypeElement>> commandsByPackage = new TreeMap<>();
+		for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+		{
+			TypeElement type = (TypeElement) element;
+			if (isInstantiableCommand(type))
+			{
+				String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+				commandsByPackage.computeIfAbsent(packageName, k -> new TreeMap<>()).put(type.getQualifiedName().toString(), type);
+			}
+		}
+		if (previousIndices == null)
+		{
+			previousIndices = readServiceFile();
+			updatePreviousIndices(commandsByPackage);
+		}
+		for (Map.Entry<String, Map<String, TypeElement>> entry : commandsByPackage.entrySet())
+		{
+			writeIndex(entry.getKey(), entry.getValue());
+		}
+		return true;
+	}
+
+	/**
+	 * Takes the indices of a previous compilation into account.
+	 *
+	 * If only some classes are compiled (e.g. by an incremental build), the commands of the previous index of their package are kept.
+	 * Indices of packages without compiled commands are kept unless some of their commands have been deleted
+	 * or are not annotated anymore, in which case they are generated again or removed if no command is left.
+	 */
+	private void updatePreviousIndices(Map<String, Map<String, TypeElement>> commandsByPackage)
+	{
+		for (String indexName : previousIndices)
+		{
+			TypeElement index = processingEnv.getElementUtils().getTypeElement(indexName);
+			String[] listed = index == null ? new String[0] : getIndexedCommands(index);
+			Map<String, TypeElement> remaining = new TreeMap<>();
+			for (String commandName : listed)
+			{
+				TypeElement command = processingEnv.getElementUtils().getTypeElement(commandName);
+				if (command != null && isAnnotated(command))
+				{
+					remaining.put(commandName, command);
+				}
+			}
+			if (remaining.isEmpty())
+			{
+				continue;
+			}
+			String packageName = processingEnv.getElementUtils().getPackageOf(index).getQualifiedName().toString();
+			Map<String, TypeElement> compiled = commandsByPackage.get(packageName);
+			if (compiled != null)
+			{
+				remaining.forEach(compiled::putIfAbsent);
+			}
+			else if (remaining.size() == listed.length)
+			{
+				indices.add(indexName);
+			}
+			else
+			{
+				commandsByPackage.put(packageName, remaining);
+			}
+		}
+	}
+
+	private static String[] getIndexedCommands(TypeElement index)
+	{
+		for (VariableElement field : ElementFilter.fieldsIn(index.getEnclosedElements()))
+		{
+			if (field.getSimpleName().contentEquals(COMMANDS_FIELD) && field.getConstantValue() instanceof String)
+			{
+				String commands = (String) field.getConstantValue();
+				return commands.isEmpty() ? new String[0] : commands.split(",");
+			}
+		}
+		return new String[0];
+	}
+
+	private static boolean isAnnotated(TypeElement type)
+	{
+		return type.getAnnotationMirrors().stream()
+				.anyMatch(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(COMMAND_ANNOTATION));
+	}
+
+	private boolean isInstantiableCommand(TypeElement type)
+	{
+		TypeMirror commandInterface = processingEnv.getElementUtils().getTypeElement(COMMAND_INTERFACE).asType();
+		if (!processingEnv.getTypeUtils().isAssignable(type.asType(), commandInterface))
+		{
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Classes annotated with @Command must implement ICommand.", type);
+			return false;
+		}
+		if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT) || !isAccessible(type))
+		{
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "The command cannot be instantiated and is not indexed.", type);
+			return false;
+		}
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+		{
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))
+			{
+				return true;
+			}
+		}
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "The command does not have an accessible no-args constructor and is not indexed.", type);
+		return false;
+	}
+
+	private static boolean isAccessible(TypeElement type)
+	{
+		Element current = type;
+		while (current instanceof TypeElement)
+		{
+			TypeElement currentType = (TypeElement) current;
+			if (currentType.getModifiers().contains(Modifier.PRIVATE)
+					|| currentType.getNestingKind() == NestingKind.MEMBER && !currentType.getModifiers().contains(Modifier.STATIC)
+					|| currentType.getNestingKind() == NestingKind.LOCAL
+					|| currentType.getNestingKind() == NestingKind.ANONYMOUS)
+			{
+				return false;
+			}
+			current = current.getEnclosingElement();
+		}
+		return true;
+	}
+
+	private void writeIndex(String packageName, Map<String, TypeElement> commandsByName)
+	{
+		String indexName = packageName.isEmpty() ? INDEX_NAME : packageName + "." + INDEX_NAME;
+		Collection<TypeElement> commands = commandsByName.values();
+		try (Writer writer = processingEnv.getFiler().createSourceFile(indexName, commands.toArray(new Element[0])).openWriter())
+		{
+			if (!packageName.isEmpty())
+			{
+				writer.write("package " + packageName + ";\n\n");
+			}
+			writer.write("/**\n * The commands of this package, generated by " + CommandIndexProcessor.class.getName() + ".\n */\n");
+			writer.write("public final class " + INDEX_NAME + " implements " + INDEX_INTERFACE + "\n{\n");
+			writer.write("\t/**\n\t * The canonical names of the indexed commands, read by the processor when only some classes are compiled again.\n\t */\n");
+			writer.write("\tstatic final String " + COMMANDS_FIELD + " = \"" + escape(String.join(",", commandsByName.keySet())) + "\";\n\n");
+			writer.write("\t@Override\n\tpublic String getPackageName()\n\t{\n\t\treturn \"" + packageName + "\";\n\t}\n\n");
+			writer.write("\t@Override\n\tpublic void registerCommands(" + INDEX_INTERFACE + ".Registry registry)\n\t{\n");
+			for (TypeElement command : commands)
+			{
+				writer.write("\t\tregistry.register(\"" + processingEnv.getElementUtils().getBinaryName(command) + "\", " + command.getQualifiedName() + "::new");
+				for (String alias : getAliases(command))
+				{
+					writer.write(", \"" + escape(alias) + "\"");
+				}
+				writer.write(");\n");
+			}
+			writer.write("\t}\n}\n");
+			indices.add(indexName);
+		}
+		catch (IOException e)
+		{
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write the command index " + indexName + ": " + e.getMessage());
+		}
+	}
+
+	private static List<String> getAliases(TypeElement command)
+	{
+		return command.getAnnotationMirrors().stream()
+				.filter(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(COMMAND_ANNOTATION))
+				.flatMap(mirror -> mirror.getElementValues().entrySet().stream())
+				.filter(value -> value.getKey().getSimpleName().contentEquals("value"))
+				.findAny()
+				.map(value -> toAliases(value.getValue().getValue()))
+				.orElse(Collections.emptyList());
+	}
+
+	private static List<String> toAliases(Object value)
+	{
+		List<String> aliases = new ArrayList<>();
+		if (value instanceof List)
+		{
+			for (Object alias : (List<?>) value)
+			{
+				aliases.add(String.valueOf(((AnnotationValue) alias).getValue()));
+			}
+		}
+		else
+		{
+			aliases.add(String.valueOf(value));
+		}
+		return aliases;
+	}
+
+	private static String escape(String value)
+	{
+		StringBuilder sb = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+			{
+				sb.append('\\').append(c);
+			}
+			else if (c < ' ' || c > '~')
+			{
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+			else
+			{
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private Set<String> readServiceFile()
+	{
+		Set<String> entries = new TreeSet<>();
+		try
+		{
+			FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8)))
+			{
+				String line;
+				while ((line = reader.readLine()) != null)
+				{
+					if (!line.trim().isEmpty())
+					{
+						entries.add(line.trim());
+					}
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			// there is no service file from a previous compilation
+		}
+		return entries;
+	}
+
+	private void writeServiceFile()
+	{
+		if (indices.isEmpty() && (previousIndices == null || previousIndices.isEmpty()))
+		{
+			return;
+		}
+		try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE).openWriter())
+		{
+			for (String entry : indices)
+			{
+				writer.write(entry + "\n");
+			}
+		}
+		catch (IOException e)
+		{
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + SERVICE_FILE + ": " + e.getMessage());
+		}
+	}
+}
\ No newline at end of file
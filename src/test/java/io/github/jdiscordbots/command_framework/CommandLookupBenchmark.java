@@ -0,0 +1,122 @@
+package io.github.jdiscordbots.command_framework;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.jdiscordbots.command_framework.command.ArgumentTemplate;
+import io.github.jdiscordbots.command_framework.command.CommandEvent;
+import io.github.jdiscordbots.command_framework.command.ICommand;
+
+/**
+ * Compares looking up the invoke of a message in a {@link CommandTable} with the previous
+ * <code>toLowerCase()</code>, <code>containsKey</code> and <code>get</code> on a {@link ConcurrentHashMap}.
+ *
+ * Run {@link CommandLookupBenchmark#main(String[])} with the test classpath, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandLookupBenchmark
+{
+	@Param({"10", "100"})
+	private int commandCount;
+
+	private final Map<String, ICommand> map = new ConcurrentHashMap<>();
+	private CommandTable table;
+	private String content;
+	private int invokeStart;
+	private int invokeEnd;
+
+	/**
+	 * Registers the commands and creates the message content.
+	 */
+	@Setup
+	public void setup()
+	{
+		Map<String, RegisteredCommand> registered = new HashMap<>();
+		for (int i = 0; i < commandCount; i++)
+		{
+			ICommand cmd = new BenchmarkCommand();
+			map.put("command" + i, cmd);
+			registered.put("command" + i, new RegisteredCommand(cmd));
+		}
+		table = new CommandTable(registered);
+		content = "!Command" + (commandCount / 2) + " some arguments \"in quotes\"";
+		invokeStart = 1;
+		invokeEnd = content.indexOf(' ');
+	}
+
+	/**
+	 * The lookup used before the {@link CommandTable}.
+	 * @return the command
+	 */
+	@Benchmark
+	public ICommand concurrentHashMap()
+	{
+		String invoke = content.substring(invokeStart, invokeEnd).toLowerCase();
+		return map.containsKey(invoke) ? map.get(invoke) : null;
+	}
+
+	/**
+	 * The lookup on a slice of the content using the {@link CommandTable}.
+	 * @return the command
+	 */
+	@Benchmark
+	public RegisteredCommand commandTable()
+	{
+		return table.get(content, invokeStart, invokeEnd);
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * @param args ignored
+	 * @throws RunnerException if the benchmark fails
+	 */
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder().include(CommandLookupBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	private static final class BenchmarkCommand implements ICommand
+	{
+		@Override
+		public void action(CommandEvent event)
+		{
+			// not executed by the benchmark
+		}
+
+		@Override
+		public String help()
+		{
+			return "benchmark";
+		}
+
+		@Override
+		public List<ArgumentTemplate> getExpectedArguments()
+		{
+			return Collections.emptyList();
+		}
+	}
+}
\ No newline at end of file